@@ -0,0 +1,31 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AirportSearchBenchmark {
+
+    // An exact country, a partial match over several countries and a very broad match
+    @Param({"Pakistan", "united", "a"})
+    public String query;
+
+    private Airports airports;
+
+    @Setup
+    public void setUp() {
+        airports = new Airports();
+    }
+
+    @Benchmark
+    public List<Airport> searchByCountry() {
+        return airports.searchByCountry(query);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping a shortest path tree current under fare changes, incrementally repaired
+ * versus rebuilt from scratch. Each invocation applies a batch of edge changes, half cheaper
+ * fares and half dearer fares on faster flights, then reads the tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicShortestPathBenchmark {
+
+    // Edge changes between two reads of the tree
+    @Param({"1", "10", "100", "1000"})
+    public int churn;
+
+    private List<Flight> network;
+    private Flight[] current;
+    private String source;
+    private String target;
+    private FlightGraph graph;
+    private ShortestPathTree tree;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SyntheticFlightAPIService service = new SyntheticFlightAPIService(42, 120, 2);
+        network = service.getNetwork();
+        List<Airport> airports = service.getAirports();
+        source = airports.get(0).IATA();
+        target = airports.get(airports.size() - 1).IATA();
+    }
+
+    // Fresh graph every iteration so fares and durations do not drift too far
+    @Setup(Level.Iteration)
+    public void build() {
+        graph = new FlightGraph();
+        for (Flight flight : network) {
+            graph.addFlight(flight, true);
+        }
+        current = network.toArray(new Flight[0]);
+        random = new SplittableRandom(7);
+        tree = graph.trackSource(source, false);
+    }
+
+    private void applyChanges() {
+        for (int i = 0; i < churn; i++) {
+            int index = random.nextInt(current.length);
+            Flight flight = current[index];
+            boolean cheaper = flight.duration() <= 1 || random.nextBoolean();
+            Flight changed = cheaper
+                    ? new Flight(flight.source(), flight.destination(),
+                            flight.price() * (0.7 + 0.29 * random.nextDouble()), flight.duration(), flight.airline())
+                    : new Flight(flight.source(), flight.destination(),
+                            flight.price() * (1.01 + 0.4 * random.nextDouble()), flight.duration() - 1, flight.airline());
+            graph.addFlight(changed, cheaper);
+            current[index] = changed;
+        }
+    }
+
+    @Benchmark
+    public double incrementalUpdate() {
+        applyChanges();
+        return tree.distanceTo(target);
+    }
+
+    @Benchmark
+    public double fullRecompute() {
+        graph.untrackSource(source, false);
+        applyChanges();
+        return graph.trackSource(source, false).distanceTo(target);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph construction and routing over synthetic networks of increasing size.
+ * Routes are searched between a fixed set of random airport pairs, cycled across invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightGraphBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    // Number of airports in the network, with one hub per 15 airports
+    @Param({"100", "500", "1867"})
+    public int size;
+
+    private List<Flight> network;
+    private FlightGraph graph;
+    private String[] sources;
+    private String[] destinations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticFlightAPIService service = new SyntheticFlightAPIService(42, size, Math.max(5, size / 15), 2);
+        network = service.getNetwork();
+        graph = new FlightGraph();
+        for (Flight flight : network) {
+            graph.addFlight(flight, true);
+        }
+
+        List<Airport> airports = service.getAirports();
+        SplittableRandom random = new SplittableRandom(7);
+        sources = new String[PAIRS];
+        destinations = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = airports.get(random.nextInt(airports.size())).IATA();
+            destinations[i] = airports.get(random.nextInt(airports.size())).IATA();
+        }
+    }
+
+    @Benchmark
+    public FlightGraph addFlights() {
+        FlightGraph built = new FlightGraph();
+        for (Flight flight : network) {
+            built.addFlight(flight, true);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public Route findCheapestRoute() {
+        int i = next++ & (PAIRS - 1);
+        return graph.findCheapestRoute(sources[i], destinations[i]);
+    }
+
+    @Benchmark
+    public Route findShortestRoute() {
+        int i = next++ & (PAIRS - 1);
+        return graph.findShortestRoute(sources[i], destinations[i]);
+    }
+}
@@ -0,0 +1,261 @@
+package com.ksbl;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load driver for the full search path: airport lookup, offer fetch, graph build,
+ * routing and pricing. Requests arrive as a Poisson process at the target rate regardless of how
+ * fast earlier ones complete, and end-to-end latency is measured from each request's intended
+ * start time, so a stalled system is not hidden by the driver slowing down (coordinated omission).
+ * Offers come from {@link SyntheticFlightAPIService}, optionally with simulated network latency.
+ *
+ * Usage: LoadGenerator [--rate=50] [--duration=30] [--warmup=5] [--seed=42] [--hubs=120]
+ * [--fetch-latency=0]
+ */
+public class LoadGenerator {
+
+    private static final String[] STAGES = {"lookup", "fetch", "graph", "routing", "pricing"};
+    private static final int TOTAL = STAGES.length;
+    private static final double EUR_TO_PKR = 300.0;
+
+    private final Airports airports;
+    private final SyntheticFlightAPIService service;
+    private final Set<String> served;
+    private final List<String> countries;
+    private final double[] cumulativeWeights;
+    private final int fetchLatencyMillis;
+
+    private final ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicLong[] errors = new AtomicLong[TOTAL + 1];
+    private final AtomicLong noRoute = new AtomicLong();
+
+    LoadGenerator(SyntheticFlightAPIService service, int fetchLatencyMillis) {
+        this.airports = new Airports();
+        this.service = service;
+        this.fetchLatencyMillis = fetchLatencyMillis;
+        this.served = new HashSet<>();
+        for (Airport airport : service.getAirports()) {
+            served.add(airport.IATA());
+        }
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new AtomicLong();
+        }
+
+        // Countries are picked in proportion to their number of airports
+        Map<String, Integer> airportCounts = new TreeMap<>();
+        for (Airport airport : service.getAirports()) {
+            airportCounts.merge(airport.country(), 1, Integer::sum);
+        }
+        this.countries = new ArrayList<>(airportCounts.keySet());
+        this.cumulativeWeights = new double[countries.size()];
+        double total = 0;
+        for (int i = 0; i < countries.size(); i++) {
+            total += airportCounts.get(countries.get(i));
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    private record Query(String origin, String destination, LocalDate date, boolean cheapest, long pick) {}
+
+    private Query nextQuery(SplittableRandom random) {
+        String origin = pickCountry(random);
+        String destination = pickCountry(random);
+        while (destination.equals(origin)) {
+            destination = pickCountry(random);
+        }
+        return new Query(origin, destination, LocalDate.now().plusDays(1 + random.nextInt(60)),
+                random.nextBoolean(), random.nextLong());
+    }
+
+    private String pickCountry(SplittableRandom random) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, target);
+        return countries.get(index < 0 ? -index - 1 : index);
+    }
+
+    /**
+     * Runs one request through every stage. The sample holds each stage's duration in nanoseconds,
+     * -1 for stages that were not reached, and the end-to-end latency from the intended start last.
+     */
+    private void execute(Query query, long intendedStart) {
+        long[] sample = new long[TOTAL + 1];
+        Arrays.fill(sample, -1);
+        int stage = 0;
+        try {
+            long start = System.nanoTime();
+            String origin = pickAirport(query.origin(), query.pick());
+            String destination = pickAirport(query.destination(), query.pick() >>> 1);
+            sample[stage] = System.nanoTime() - start;
+
+            stage++;
+            start = System.nanoTime();
+            if (fetchLatencyMillis > 0) {
+                Thread.sleep(fetchLatencyMillis);
+            }
+            List<Flight> flights = service.searchFlights(origin, destination, query.date(), 100);
+            sample[stage] = System.nanoTime() - start;
+
+            stage++;
+            start = System.nanoTime();
+            FlightGraph graph = new FlightGraph();
+            for (Flight flight : flights) {
+                graph.addFlight(flight, query.cheapest());
+            }
+            sample[stage] = System.nanoTime() - start;
+
+            stage++;
+            start = System.nanoTime();
+            Route route = query.cheapest()
+                    ? graph.findCheapestRoute(origin, destination)
+                    : graph.findShortestRoute(origin, destination);
+            sample[stage] = System.nanoTime() - start;
+
+            stage++;
+            start = System.nanoTime();
+            if (route.format(EUR_TO_PKR).isEmpty()) {
+                noRoute.incrementAndGet();
+            }
+            sample[stage] = System.nanoTime() - start;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors[stage].incrementAndGet();
+            errors[TOTAL].incrementAndGet();
+        } catch (Exception e) {
+            errors[stage].incrementAndGet();
+            errors[TOTAL].incrementAndGet();
+        }
+        sample[TOTAL] = System.nanoTime() - intendedStart;
+        samples.add(sample);
+    }
+
+    private String pickAirport(String country, long pick) {
+        List<Airport> candidates = new ArrayList<>();
+        for (Airport airport : airports.searchByCountry(country)) {
+            if (airport.country().equals(country) && served.contains(airport.IATA())) {
+                candidates.add(airport);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No airports for " + country);
+        }
+        candidates.sort(Comparator.comparing(Airport::IATA));
+        return candidates.get(Math.floorMod(pick, candidates.size())).IATA();
+    }
+
+    /**
+     * Issues requests at the target rate for the given time, then waits for the stragglers
+     * @return The wall-clock time the run took in nanoseconds
+     */
+    long run(double rate, int seconds, long seed) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1e9 / rate;
+        long begin = System.nanoTime();
+        long end = begin + seconds * 1_000_000_000L;
+        long intended = begin;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (intended < end) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Query query = nextQuery(random);
+                long start = intended;
+                executor.execute(() -> execute(query, start));
+                // Exponential gaps give Poisson arrivals
+                intended += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            }
+        }
+        return System.nanoTime() - begin;
+    }
+
+    void reset() {
+        samples.clear();
+        noRoute.set(0);
+        for (AtomicLong counter : errors) {
+            counter.set(0);
+        }
+    }
+
+    void report(long elapsedNanos) {
+        int requests = samples.size();
+        long failed = errors[TOTAL].get();
+        System.out.println("+----------------------+----------------------+----------------------+");
+        System.out.printf("Requests: %d  Throughput: %.1f req/s  Errors: %d (%.2f%%)  No route: %d%n",
+                requests, requests / (elapsedNanos / 1e9), failed,
+                requests == 0 ? 0.0 : 100.0 * failed / requests, noRoute.get());
+        System.out.println("+----------------------+----------------------+----------------------+");
+        System.out.printf("%-10s %8s %8s %8s %10s %10s %10s %10s%n",
+                "stage", "reached", "errors", "error %", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (int stage = 0; stage <= TOTAL; stage++) {
+            long[] values = collect(stage);
+            Arrays.sort(values);
+            long stageErrors = errors[stage].get();
+            // A request that failed in a stage reached it but has no duration for it
+            long reached = stage == TOTAL ? values.length : values.length + stageErrors;
+            System.out.printf("%-10s %8d %8d %8.2f %10.3f %10.3f %10.3f %10.3f%n",
+                    stage == TOTAL ? "end-to-end" : STAGES[stage], reached, stageErrors,
+                    reached == 0 ? 0.0 : 100.0 * stageErrors / reached,
+                    percentile(values, 0.5), percentile(values, 0.99), percentile(values, 0.999),
+                    values.length == 0 ? 0.0 : values[values.length - 1] / 1e6);
+        }
+    }
+
+    private long[] collect(int stage) {
+        long[] values = new long[samples.size()];
+        int count = 0;
+        for (long[] sample : samples) {
+            if (sample[stage] >= 0) {
+                values[count++] = sample[stage];
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    public static void main(String[] args) {
+        try {
+            Map<String, String> options = new HashMap<>();
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (!arg.startsWith("--") || split == -1) {
+                    throw new IllegalArgumentException("Invalid option: " + arg);
+                }
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+            double rate = Double.parseDouble(options.getOrDefault("rate", "50"));
+            int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+            int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+            long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+            int hubs = Integer.parseInt(options.getOrDefault("hubs", "120"));
+            int fetchLatency = Integer.parseInt(options.getOrDefault("fetch-latency", "0"));
+            if (rate <= 0 || duration <= 0 || warmup < 0) {
+                throw new IllegalArgumentException("Rate and duration must be positive");
+            }
+
+            System.out.println("Generating the synthetic network....");
+            LoadGenerator generator = new LoadGenerator(new SyntheticFlightAPIService(seed, hubs, 2), fetchLatency);
+
+            if (warmup > 0) {
+                System.out.println("Warming up for " + warmup + "s....");
+                generator.run(rate, warmup, seed + 1);
+                generator.reset();
+            }
+            System.out.println("Running " + rate + " req/s for " + duration + "s....");
+            generator.report(generator.run(rate, duration, seed));
+        } catch (Exception e) {
+            System.err.println("Error running load generator: " + e.getMessage());
+        }
+    }
+}
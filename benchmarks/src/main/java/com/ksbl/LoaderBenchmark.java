@@ -0,0 +1,27 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read and parse the CSV reference data, bypassing the singletons
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmark {
+
+    @Benchmark
+    public AirportLoader loadAirports() {
+        return new AirportLoader();
+    }
+
+    @Benchmark
+    public AirlineLoader loadAirlines() {
+        return new AirlineLoader();
+    }
+}
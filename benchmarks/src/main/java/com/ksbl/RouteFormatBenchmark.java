@@ -0,0 +1,52 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of a three leg route, using a fixed rate so no exchange rate call is made,
+ * against encoding it as JSON or binary into a reused buffer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteFormatBenchmark {
+
+    private static final double EUR_TO_PKR = 300.0;
+
+    private Route route;
+    private RouteEncoder encoder;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        route = new Route();
+        route.addFlight(new Flight("LHE", "DXB", 182.40, 215, "Pakistan International Airlines"));
+        route.addFlight(new Flight("DXB", "IST", 241.15, 290, "Emirates"));
+        route.addFlight(new Flight("IST", "JFK", 512.99, 660, "Turkish Airlines"));
+        encoder = new RouteEncoder();
+        buffer = ByteBuffer.allocate(4096);
+    }
+
+    @Benchmark
+    public String format() {
+        return route.format(EUR_TO_PKR);
+    }
+
+    @Benchmark
+    public int encodeJson() {
+        buffer.clear();
+        return encoder.encodeJson(route, buffer);
+    }
+
+    @Benchmark
+    public int encodeBinary() {
+        buffer.clear();
+        return encoder.encodeBinary(route, buffer);
+    }
+}
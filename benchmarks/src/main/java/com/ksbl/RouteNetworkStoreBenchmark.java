@@ -0,0 +1,107 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening and routing over a memory-mapped store of the full synthetic network, scheduled
+ * once per day for a number of days. 200 days gives about 4.25 million edges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteNetworkStoreBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    // Days of schedule written to the store, each repeating every leg once
+    @Param({"1", "200"})
+    public int days;
+
+    private Path file;
+    private RouteNetworkStore store;
+    private int[] sources;
+    private int[] destinations;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        SyntheticFlightAPIService service = new SyntheticFlightAPIService(42, 120, 2);
+        List<String> codes = new ArrayList<>();
+        for (Airport airport : service.getAirports()) {
+            codes.add(airport.IATA());
+        }
+        codes.sort(null);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            ids.put(codes.get(i), i);
+        }
+
+        // getNetwork is sorted by origin code, so the days of each origin are written together
+        file = Files.createTempFile("network", ".store");
+        List<Flight> network = service.getNetwork();
+        try (RouteNetworkStore.Writer writer = new RouteNetworkStore.Writer(file, codes.size())) {
+            int start = 0;
+            while (start < network.size()) {
+                int end = start;
+                while (end < network.size() && network.get(end).source().equals(network.get(start).source())) {
+                    end++;
+                }
+                for (int day = 0; day < days; day++) {
+                    for (Flight flight : network.subList(start, end)) {
+                        long cents = Math.round(flight.price() * 100) * (90 + day % 21) / 100;
+                        writer.add(ids.get(flight.source()), ids.get(flight.destination()), 0,
+                                cents, flight.duration(), day * 86_400L);
+                    }
+                }
+                start = end;
+            }
+        }
+        store = RouteNetworkStore.open(file);
+
+        SplittableRandom random = new SplittableRandom(7);
+        sources = new int[PAIRS];
+        destinations = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = random.nextInt(codes.size());
+            destinations[i] = random.nextInt(codes.size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long open() throws IOException {
+        try (RouteNetworkStore opened = RouteNetworkStore.open(file)) {
+            return opened.getEdgeCount();
+        }
+    }
+
+    @Benchmark
+    public long[] findCheapestRoute() {
+        int i = next++ & (PAIRS - 1);
+        return store.findRoute(sources[i], destinations[i], false);
+    }
+
+    @Benchmark
+    public long[] findShortestRoute() {
+        int i = next++ & (PAIRS - 1);
+        return store.findRoute(sources[i], destinations[i], true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ksbl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing when searches come from a small set of popular sources, with automatic tracking
+ * off (plain Dijkstra) and on. With more popular sources than tracked slots the least
+ * recently searched trees are dropped and rebuilt, which shows the cost of churn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackedSourceBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    // Sources tracked automatically per criterion, 0 for plain Dijkstra
+    @Param({"0", "64"})
+    public int maxTrackedSources;
+
+    // Distinct sources the searches are drawn from
+    @Param({"16", "256"})
+    public int popularSources;
+
+    private FlightGraph graph;
+    private String[] sources;
+    private String[] destinations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticFlightAPIService service = new SyntheticFlightAPIService(42, 500, 33, 2);
+        graph = new FlightGraph(maxTrackedSources);
+        for (Flight flight : service.getNetwork()) {
+            graph.addFlight(flight, true);
+        }
+
+        List<Airport> airports = service.getAirports();
+        SplittableRandom random = new SplittableRandom(7);
+        sources = new String[PAIRS];
+        destinations = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sources[i] = airports.get(random.nextInt(popularSources)).IATA();
+            destinations[i] = airports.get(random.nextInt(airports.size())).IATA();
+        }
+    }
+
+    @Benchmark
+    public Route findCheapestRoute() {
+        int i = next++ & (PAIRS - 1);
+        return graph.findCheapestRoute(sources[i], destinations[i]);
+    }
+}
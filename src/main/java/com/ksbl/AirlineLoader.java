@@ -13,11 +13,11 @@ public class AirlineLoader {
 
     final Map<String, Airline> airlines;
 
-    private static AirlineLoader instance;
+    private static volatile AirlineLoader instance;
 
 
 
-    private AirlineLoader() {
+    AirlineLoader() {
         airlines = new HashMap<>();
         loadAirlines();
     }
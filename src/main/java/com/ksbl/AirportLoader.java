@@ -13,11 +13,11 @@ public class AirportLoader {
 
     final Map<String, Airport> airports;
 
-    private static AirportLoader instance;
+    private static volatile AirportLoader instance;
 
 
 
-    private AirportLoader() {
+    AirportLoader() {
          airports = new HashMap<>();
         loadAirports();
     }
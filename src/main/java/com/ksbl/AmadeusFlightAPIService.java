@@ -0,0 +1,149 @@
+package com.ksbl;
+
+import com.amadeus.Amadeus;
+import com.amadeus.Params;
+import com.amadeus.exceptions.ResponseException;
+import com.amadeus.resources.FlightOfferSearch;
+
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+
+public class AmadeusFlightAPIService implements FlightAPIService {
+    private final Amadeus amadeus;
+    private final boolean nonStopFirst;
+    AirportLoader airportLoader;
+
+    public AmadeusFlightAPIService(String apiKey, String apiSecret) {
+        this(apiKey, apiSecret, false);
+    }
+
+    /**
+     * @param nonStopFirst Whether split searches also request non-stop offers on their own,
+     * see {@link #searchFlightsInParts}
+     */
+    public AmadeusFlightAPIService(String apiKey, String apiSecret, boolean nonStopFirst) {
+        this.amadeus = Amadeus
+                .builder(apiKey, apiSecret)
+                .build();
+        this.nonStopFirst = nonStopFirst;
+        this.airportLoader = AirportLoader.getInstance();
+    }
+
+    /**
+     * Creates a client against a custom host, such as a local {@link HttpReplayServer}
+     */
+    public AmadeusFlightAPIService(String apiKey, String apiSecret, String host, int port, boolean ssl,
+                                   boolean nonStopFirst) {
+        this.amadeus = Amadeus
+                .builder(apiKey, apiSecret)
+                .setHost(host)
+                .setPort(port)
+                .setSsl(ssl)
+                .build();
+        this.nonStopFirst = nonStopFirst;
+        this.airportLoader = AirportLoader.getInstance();
+    }
+
+    @Override
+    public List<Flight> searchFlights(String origin, String destination, LocalDate date,int routes) {
+        return search(searchParams(origin, destination, date, routes));
+    }
+
+    /**
+     * A single search unless non-stop offers were enabled, in which case they are also requested
+     * on their own since the smaller response usually arrives first with a usable route. The
+     * Amadeus API cannot exclude non-stop offers, so this makes two calls against the quota and
+     * the full search returns the non-stop offers again.
+     */
+    @Override
+    public List<Callable<List<Flight>>> searchFlightsInParts(String origin, String destination, LocalDate date, int routes) {
+        if (!nonStopFirst) {
+            return FlightAPIService.super.searchFlightsInParts(origin, destination, date, routes);
+        }
+        return List.of(
+                () -> search(searchParams(origin, destination, date, routes).and("nonStop", true)),
+                () -> search(searchParams(origin, destination, date, routes)));
+    }
+
+    private static Params searchParams(String origin, String destination, LocalDate date, int routes) {
+        return Params.with("originLocationCode", origin)
+                .and("destinationLocationCode", destination)
+                .and("departureDate", date.toString())
+                .and("adults", 1)
+                .and("max", routes);
+    }
+
+    private List<Flight> search(Params params) {
+        List<Flight> flights = new ArrayList<>();
+
+        try {
+            FlightOfferSearch[] flightOffers = amadeus.shopping.flightOffersSearch.get(params);
+
+            for (FlightOfferSearch offer : flightOffers) {
+                double totalPrice = Double.parseDouble(offer.getPrice().getTotal());
+
+                for (FlightOfferSearch.Itinerary itinerary : offer.getItineraries()) {
+                    int totalDuration = parseDuration(itinerary.getDuration());
+
+                    for (FlightOfferSearch.SearchSegment segment : itinerary.getSegments()) {
+                        Flight flight = new Flight(
+                                segment.getDeparture().getIataCode(),
+                                segment.getArrival().getIataCode(),// Distance not needed
+                                totalPrice/offer.getItineraries()[0].getSegments().length,  // Store total price
+                                totalDuration/offer.getItineraries()[0].getSegments().length,// Store total duration
+                                AirlineLoader.getInstance().getAirline(segment.getCarrierCode())
+                        );
+                        flights.add(flight);
+                    }
+                }
+            }
+        } catch (ResponseException e) {
+            System.out.println(e.getMessage());
+        }
+
+        return flights;
+    }
+
+    /**
+     * Makes a small reference data request so the access token is fetched
+     * and the connection is open before the first flight search.
+     */
+    @Override
+    public void warmUp() {
+        try {
+            amadeus.referenceData.airlines.get(Params.with("airlineCodes", "PK"));
+        } catch (ResponseException e) {
+            // The flight search will surface the same problem to the user
+        }
+    }
+
+    private int parseDuration(String duration) {
+        // Remove PT prefix
+        duration = duration.substring(2);
+
+        int hours = 0;
+        int minutes = 0;
+
+        // Find hours
+        int hIndex = duration.indexOf('H');
+        if (hIndex != -1) {
+            hours = Integer.parseInt(duration.substring(0, hIndex));
+            duration = duration.substring(hIndex + 1);
+        }
+
+        // Find minutes
+        int mIndex = duration.indexOf('M');
+        if (mIndex != -1) {
+            minutes = Integer.parseInt(duration.substring(0, mIndex));
+        }
+
+        return hours * 60 + minutes;  // Return total minutes
+    }
+
+
+}
@@ -21,16 +21,17 @@ public class App {
                 return;
             }
 
-            // Initialize components
-            Airports airports = new Airports();
+            // Start loading data and connecting to the APIs while the user types
+            final Dotenv env = dotenv;
+            StartupOrchestrator startup = new StartupOrchestrator(() -> createApiService(env));
 
 
             // Handle origin country input
-            HashMap<String, String> originCountry = processOriginInput(airports, scanner);
+            HashMap<String, String> originCountry = processOriginInput(startup, scanner);
             if (originCountry == null) return;
 
             // Handle destination country input
-            HashMap<String, String> destinationCountry = processDestinationInput(airports, scanner);
+            HashMap<String, String> destinationCountry = processDestinationInput(startup, scanner);
             if (destinationCountry == null) return;
 
             // Handle date input
@@ -45,7 +46,7 @@ public class App {
             printFlightSummary(originCountry, destinationCountry, flightDate, cheapest);
 
             // Process flight data
-            processFlightData(dotenv, originCountry, destinationCountry, flightDate, cheapest);
+            processFlightData(startup, originCountry, destinationCountry, flightDate, cheapest);
 
         } catch (Exception e) {
             System.err.println("An unexpected error occurred: " + e.getMessage());
@@ -53,7 +54,7 @@ public class App {
 
     }
 
-    private static HashMap<String, String> processOriginInput(Airports airports, Scanner scanner) {
+    private static HashMap<String, String> processOriginInput(StartupOrchestrator startup, Scanner scanner) {
         try {
             System.out.print("Enter the origin country, or search for the country if you don't know the exact official name: ");
             String origin = scanner.nextLine().trim();
@@ -63,6 +64,8 @@ public class App {
                 return null;
             }
 
+            // The airports have been loading while the user typed, wait for whatever is left
+            Airports airports = startup.getAirports();
             List<Airport> originsList = airports.searchByCountry(origin);
             if (originsList.isEmpty()) {
                 System.out.println("Error: No airports found for the specified origin country");
@@ -83,7 +86,7 @@ public class App {
         }
     }
 
-    private static HashMap<String, String> processDestinationInput(Airports airports, Scanner scanner) {
+    private static HashMap<String, String> processDestinationInput(StartupOrchestrator startup, Scanner scanner) {
         try {
             System.out.print("Enter the destination country, or search for the country if you don't know the exact official name: ");
             String destination = scanner.nextLine().trim();
@@ -93,6 +96,7 @@ public class App {
                 return null;
             }
 
+            Airports airports = startup.getAirports();
             List<Airport> destinationList = airports.searchByCountry(destination);
             if (destinationList.isEmpty()) {
                 System.out.println("Error: No airports found for the specified destination country");
@@ -182,51 +186,72 @@ public class App {
         System.out.println("+----------------------+----------------------+----------------------+");
     }
 
-    private static void processFlightData(Dotenv dotenv,
+    private static FlightAPIService createApiService(Dotenv dotenv) {
+        String apiKey = dotenv.get("API_KEY");
+        String apiSecret = dotenv.get("API_SECRET");
+
+        if (apiKey == null || apiSecret == null) {
+            throw new IllegalStateException("API credentials not found in environment variables");
+        }
+
+        // Requesting non-stop offers separately costs an extra API call per search
+        boolean nonStopFirst = Boolean.parseBoolean(dotenv.get("AMADEUS_NON_STOP_FIRST", "false"));
+
+        // Optional overrides to point the client at a local stub server
+        String apiHost = dotenv.get("AMADEUS_HOST");
+        return apiHost == null
+                ? new AmadeusFlightAPIService(apiKey, apiSecret, nonStopFirst)
+                : new AmadeusFlightAPIService(apiKey, apiSecret, apiHost,
+                        Integer.parseInt(dotenv.get("AMADEUS_PORT", "443")),
+                        Boolean.parseBoolean(dotenv.get("AMADEUS_SSL", "true")),
+                        nonStopFirst);
+    }
+
+    private static void processFlightData(StartupOrchestrator startup,
                                           HashMap<String, String> originCountry,
                                           HashMap<String, String> destinationCountry,
                                           LocalDate flightDate,
                                           boolean cheapest) {
         try {
-            String apiKey = dotenv.get("API_KEY");
-            String apiSecret = dotenv.get("API_SECRET");
-
-            if (apiKey == null || apiSecret == null) {
-                throw new IllegalStateException("API credentials not found in environment variables");
-            }
+            FlightAPIService apiService = startup.getApiService();
 
             System.out.println("Getting the flights....");
-            FlightDataLoader dataLoader = new FlightDataLoader(apiKey, apiSecret);
-            FlightGraph graph = dataLoader.loadFlightData(originCountry.get("IATA"),
+            FlightDataLoader dataLoader = new FlightDataLoader(apiService);
+            // Show each better route as soon as part of the search has returned
+            Route bestRoute = dataLoader.loadProgressively(originCountry.get("IATA"),
                     destinationCountry.get("IATA"),
                     flightDate,
                     100,  // routes limit
-                    cheapest);
-
-            if (cheapest) {
-                Route cheapestRoute = graph.findCheapestRoute(originCountry.get("IATA"),
-                        destinationCountry.get("IATA"));
-                if (cheapestRoute == null || cheapestRoute.toString().isEmpty()) {
-                    System.out.println("We're sorry but there are no flights available");
-                } else {
-                    System.out.println("The Cheapest Route for you will be: ");
-                    System.out.println(cheapestRoute);
-                }
+                    cheapest,
+                    route -> printBestSoFar(route, cheapest, startup)).join();
+
+            if (bestRoute.getFlights().isEmpty()) {
+                System.out.println("We're sorry but there are no flights available");
             } else {
-                Route shortestRoute = graph.findShortestRoute(originCountry.get("IATA"),
-                        destinationCountry.get("IATA"));
-                if (shortestRoute == null || shortestRoute.toString().isEmpty()) {
-                    System.out.println("We're sorry but there are no flights available");
-                } else {
-                    System.out.println("The Shortest Route for you will be:");
-                    System.out.println(shortestRoute);
-                }
+                // The rate has been fetching alongside the search, so this rarely waits
+                double exchangeRate = startup.getExchangeRate();
+                System.out.println(cheapest ? "The Cheapest Route for you will be: " : "The Shortest Route for you will be:");
+                System.out.println(bestRoute.format(exchangeRate));
             }
         } catch (Exception e) {
             System.err.println("Error processing flight data: " + e.getMessage());
         }
     }
 
+    private static void printBestSoFar(Route route, boolean cheapest, StartupOrchestrator startup) {
+        String flights = route.getFlights().size() + " flight(s)";
+        if (!cheapest) {
+            System.out.println("Best so far: " + String.format("%02d Hours and %02d Minutes",
+                    route.getTotalDuration() / 60, route.getTotalDuration() % 60) + " with " + flights);
+            return;
+        }
+        // Never wait for the exchange rate here, the price is left out until it has arrived
+        OptionalDouble exchangeRate = startup.getExchangeRateIfReady();
+        System.out.println(exchangeRate.isPresent()
+                ? "Best so far: " + String.format("PKR %.2f", route.getTotalPrice() * exchangeRate.getAsDouble()) + " with " + flights
+                : "Best so far: a route with " + flights);
+    }
+
 
     public static List<String> getDistinctCountries(List<Airport> airports) {
         return airports.stream()
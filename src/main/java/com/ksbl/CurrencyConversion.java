@@ -1,5 +1,8 @@
 package com.ksbl;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import io.github.cdimascio.dotenv.Dotenv;
 
 import java.io.IOException;
@@ -7,73 +10,36 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class CurrencyConversion {
-    private static final Dotenv dotenv = Dotenv.load();
-    private static final String BASE_URL = String.format("https://v6.exchangerate-api.com/v6/%s/pair/EUR/PKR",
+    // Settings may also come from the environment alone, as in CI
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+    private static final String BASE_URL = String.format("%s/v6/%s/latest/",
+            dotenv.get("EXCHANGE_RATE_BASE_URL", "https://v6.exchangerate-api.com"),
             dotenv.get("EXCHANGE_RATE_API_KEY"));
 
     /**
-         * Custom class to represent the API response
-         */
-        private record ExchangeRateResponse(String result, double conversionRate) {
-
-        public boolean isSuccess() {
-                return "success".equals(result);
-            }
-
-            /**
-             * Parses the JSON string into an ExchangeRateResponse object
-             *
-             * @param json The JSON string from the API
-             * @return ExchangeRateResponse object
-             * @throws IllegalArgumentException if JSON parsing fails
-             */
-            public static ExchangeRateResponse fromJson(String json) {
-                try {
-                    // Simple JSON parsing without external libraries
-                    json = json.replaceAll("\\s", "");
-                    String result = extractValue(json, "result");
-                    double rate = Double.parseDouble(extractValue(json, "conversion_rate"));
-                    return new ExchangeRateResponse(result, rate);
-                } catch (Exception e) {
-                    throw new IllegalArgumentException("Failed to parse API response: " + e.getMessage());
-                }
-            }
-
-            private static String extractValue(String json, String key) {
-                String searchKey = "\"" + key + "\":";
-                int start = json.indexOf(searchKey) + searchKey.length();
-                if (start == -1) {
-                    throw new IllegalArgumentException("Key not found: " + key);
-                }
+     * Currency flight prices are quoted in
+     */
+    public static final String PRICE_CURRENCY = "EUR";
 
-                // Handle string values
-                if (json.charAt(start) == '"') {
-                    start++; // Skip opening quote
-                    int end = json.indexOf('"', start);
-                    return json.substring(start, end);
-                }
-                // Handle numeric values
-                else {
-                    int end = json.indexOf(',', start);
-                    if (end == -1) {
-                        end = json.indexOf('}', start);
-                    }
-                    return json.substring(start, end);
-                }
-            }
-        }
+    // One table is shared by every instance, so each refresh is a single request for the whole process
+    private static final Object REFRESH_LOCK = new Object();
+    private static volatile ExchangeRateTable rateTable;
 
     /**
-     * Fetches the current EUR to PKR exchange rate from the API
-     * @return The conversion rate
+     * Fetches the rates of every supported currency against a base currency in a single call
+     * @param baseCurrency The ISO code of the base currency
+     * @return The rate table
      * @throws IOException If there's an error calling the API
      */
-    public double getExchangeRate() throws IOException, InterruptedException {
+    public ExchangeRateTable fetchRateTable(String baseCurrency) throws IOException, InterruptedException {
         HttpClient client = HttpClient.newHttpClient();
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL))
+                .uri(URI.create(BASE_URL + baseCurrency))
                 .GET()
                 .build();
 
@@ -83,13 +49,73 @@ public class CurrencyConversion {
             throw new IOException("API call failed with status code: " + response.statusCode());
         }
 
-        ExchangeRateResponse exchangeRate = ExchangeRateResponse.fromJson(response.body());
+        return parseRateTable(response.body());
+    }
+
+    /**
+     * Parses the API response into a rate table
+     * @param json The JSON string from the API
+     * @return The rate table
+     * @throws IOException If the call was not successful or the response cannot be parsed
+     */
+    static ExchangeRateTable parseRateTable(String json) throws IOException {
+        try {
+            JsonObject body = JsonParser.parseString(json).getAsJsonObject();
+            if (!"success".equals(body.get("result").getAsString())) {
+                throw new IOException("API call was not successful");
+            }
+            Map<String, Double> rates = new HashMap<>();
+            for (Map.Entry<String, JsonElement> rate : body.getAsJsonObject("conversion_rates").entrySet()) {
+                rates.put(rate.getKey(), rate.getValue().getAsDouble());
+            }
+            return new ExchangeRateTable(body.get("base_code").getAsString(), rates);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to parse API response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the rates against the flight price currency, fetching them once on first use.
+     * Concurrent first callers wait for a single fetch.
+     * @return The shared rate table
+     * @throws IOException If there's an error calling the API
+     */
+    public ExchangeRateTable getRateTable() throws IOException, InterruptedException {
+        ExchangeRateTable table = rateTable;
+        if (table == null) {
+            synchronized (REFRESH_LOCK) {
+                table = rateTable;
+                if (table == null) {
+                    table = refresh();
+                }
+            }
+        }
+        return table;
+    }
 
-        if (!exchangeRate.isSuccess()) {
-            throw new IOException("API call was not successful");
+    /**
+     * Replaces the shared rate table with a freshly fetched one
+     * @return The new rate table
+     * @throws IOException If there's an error calling the API
+     */
+    public ExchangeRateTable refresh() throws IOException, InterruptedException {
+        synchronized (REFRESH_LOCK) {
+            ExchangeRateTable table = fetchRateTable(PRICE_CURRENCY);
+            rateTable = table;
+            return table;
         }
+    }
 
-        return exchangeRate.conversionRate();
+    /**
+     * Fetches the current EUR to PKR exchange rate from the API
+     * @return The conversion rate
+     * @throws IOException If there's an error calling the API
+     */
+    public double getExchangeRate() throws IOException, InterruptedException {
+        ExchangeRateTable table = getRateTable();
+        return table.rate(table.currencyId(PRICE_CURRENCY), table.currencyId("PKR"));
     }
 
     /**
@@ -107,4 +133,24 @@ public class CurrencyConversion {
         double rate = getExchangeRate();
         return eurAmount * rate;
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts the total price of every route to a currency in one pass, using a single rate lookup
+     * @param routes The routes to price
+     * @param currency The ISO code of the target currency
+     * @return The total prices in minor units of the target currency, in route order
+     * @throws IOException If there's an error getting the exchange rates
+     * @throws IllegalArgumentException If the currency is not supported
+     */
+    public long[] convertRoutes(List<Route> routes, String currency) throws IOException, InterruptedException {
+        ExchangeRateTable table = getRateTable();
+        int from = table.currencyId(PRICE_CURRENCY);
+        int to = table.currencyId(currency);
+
+        long[] prices = new long[routes.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = table.toMinorUnits(routes.get(i).getTotalPrice(), from);
+        }
+        return table.convert(prices, from, to, prices);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ksbl;
+
+import java.util.*;
+
+/**
+ * Snapshot of the exchange rates for one base currency, held as primitive arrays indexed by currency id.
+ * Amounts are converted in minor units (cents, paisa, ...) so results are exact whole amounts.
+ */
+public class ExchangeRateTable {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final String baseCurrency;
+    private final String[] codes;
+    private final Map<String, Integer> ids;
+    private final double[] rates;
+    private final int[] fractionDigits;
+
+    /**
+     * @param baseCurrency The currency the rates are quoted against
+     * @param ratesByCode Units of each currency per one unit of the base currency
+     * @throws IllegalArgumentException If a rate is not positive or the base currency has no rate
+     */
+    public ExchangeRateTable(String baseCurrency, Map<String, Double> ratesByCode) {
+        this.baseCurrency = baseCurrency;
+        this.codes = ratesByCode.keySet().stream().sorted().toArray(String[]::new);
+        this.ids = new HashMap<>();
+        this.rates = new double[codes.length];
+        this.fractionDigits = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            double rate = ratesByCode.get(codes[i]);
+            if (!(rate > 0)) {
+                throw new IllegalArgumentException("Invalid rate for " + codes[i] + ": " + rate);
+            }
+            ids.put(codes[i], i);
+            rates[i] = rate;
+            fractionDigits[i] = fractionDigits(codes[i]);
+        }
+        if (!ids.containsKey(baseCurrency)) {
+            throw new IllegalArgumentException("No rate for the base currency " + baseCurrency);
+        }
+    }
+
+    private static int fractionDigits(String code) {
+        try {
+            int digits = Currency.getInstance(code).getDefaultFractionDigits();
+            return Math.max(0, Math.min(digits, POWERS_OF_TEN.length - 1));
+        } catch (IllegalArgumentException e) {
+            // Codes unknown to the JDK are assumed to use cents
+            return 2;
+        }
+    }
+
+    public String getBaseCurrency() { return baseCurrency; }
+
+    public int size() { return codes.length; }
+
+    public String code(int currencyId) { return codes[currencyId]; }
+
+    /**
+     * @return The id of the currency in this table
+     * @throws IllegalArgumentException If the table has no rate for the currency
+     */
+    public int currencyId(String code) {
+        Integer id = ids.get(code);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown currency: " + code);
+        }
+        return id;
+    }
+
+    /**
+     * @return Units of the target currency per unit of the source currency
+     */
+    public double rate(int fromId, int toId) {
+        return rates[toId] / rates[fromId];
+    }
+
+    /**
+     * Rounds a decimal amount to the minor units of a currency
+     */
+    public long toMinorUnits(double amount, int currencyId) {
+        return Math.round(amount * POWERS_OF_TEN[fractionDigits[currencyId]]);
+    }
+
+    /**
+     * Converts minor unit amounts between two currencies in one pass, rounding half up
+     * @param amounts Amounts in minor units of the source currency
+     * @param fromId Id of the source currency
+     * @param toId Id of the target currency
+     * @param out Receives the converted amounts, may be the same array as the input
+     * @return The output array
+     * @throws IllegalArgumentException If the output is shorter than the input
+     */
+    public long[] convert(long[] amounts, int fromId, int toId, long[] out) {
+        if (out.length < amounts.length) {
+            throw new IllegalArgumentException("Output array is too small");
+        }
+        // One factor covers both the rate and the difference in minor unit scale
+        double factor = rate(fromId, toId)
+                * POWERS_OF_TEN[fractionDigits[toId]] / POWERS_OF_TEN[fractionDigits[fromId]];
+        for (int i = 0; i < amounts.length; i++) {
+            out[i] = Math.round(amounts[i] * factor);
+        }
+        return out;
+    }
+}
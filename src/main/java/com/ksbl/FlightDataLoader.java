@@ -1,14 +1,26 @@
 package com.ksbl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class FlightDataLoader {
     private final FlightAPIService apiService;
     private final FlightGraph graph;
 
     public FlightDataLoader(String apiKey, String apiSecret) {
-        this.apiService = new FlightAPIService(apiKey, apiSecret);
+        this(new AmadeusFlightAPIService(apiKey, apiSecret));
+    }
+
+    public FlightDataLoader(FlightAPIService apiService) {
+        this.apiService = apiService;
         this.graph = new FlightGraph();
     }
 
@@ -21,4 +33,83 @@ public class FlightDataLoader {
 
         return graph;
     }
+
+    /**
+     * Runs the parts of the search in parallel on virtual threads and reports each improved route as soon as it is found.
+     * The threads' executor is shut down once the search has finished.
+     * @see #loadProgressively(String, String, LocalDate, int, boolean, Consumer, Executor)
+     */
+    public CompletableFuture<Route> loadProgressively(String origin, String destination, LocalDate date, int routes,
+                                                      boolean cheapest, Consumer<Route> onBetterRoute) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            return loadProgressively(origin, destination, date, routes, cheapest, onBetterRoute, executor)
+                    .whenComplete((route, error) -> executor.shutdown());
+        } catch (RuntimeException e) {
+            executor.shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the parts of the search in parallel, adding each part's flights to the graph as it arrives
+     * and searching again, so a first route is available long before the whole search has finished.
+     * Parts that fail are reported and skipped.
+     * @param onBetterRoute Called, one call at a time, with each route better than all previous ones
+     * @param executor Executor the parts run on
+     * @return A future completing with the best route once every part has finished, empty if none was found
+     */
+    public CompletableFuture<Route> loadProgressively(String origin, String destination, LocalDate date, int routes,
+                                                      boolean cheapest, Consumer<Route> onBetterRoute, Executor executor) {
+        Route[] best = {new Route()};
+        List<CompletableFuture<Void>> parts = new ArrayList<>();
+
+        for (Callable<List<Flight>> part : apiService.searchFlightsInParts(origin, destination, date, routes)) {
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return part.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor).handle((flights, error) -> {
+                if (error != null) {
+                    System.err.println("Error loading part of the flight data: " + error.getCause().getMessage());
+                    return null;
+                }
+                // Parts finish in any order, so graph updates and searches take turns
+                synchronized (graph) {
+                    for (Flight flight : flights) {
+                        graph.addFlight(flight, cheapest);
+                    }
+                    Route route = cheapest
+                            ? graph.findCheapestRoute(origin, destination)
+                            : graph.findShortestRoute(origin, destination);
+                    if (isBetter(route, best[0], cheapest)) {
+                        best[0] = route;
+                        onBetterRoute.accept(route);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    synchronized (graph) {
+                        return best[0];
+                    }
+                });
+    }
+
+    private static boolean isBetter(Route route, Route best, boolean cheapest) {
+        if (route.getFlights().isEmpty()) {
+            return false;
+        }
+        if (best.getFlights().isEmpty()) {
+            return true;
+        }
+        return cheapest
+                ? route.getTotalPrice() < best.getTotalPrice()
+                : route.getTotalDuration() < best.getTotalDuration();
+    }
 }
@@ -1,12 +1,81 @@
 package com.ksbl;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FlightGraph {
+    // Sources searched from this many times get a shortest path tree that is kept up to date
+    private static final int TRACKING_THRESHOLD = 3;
+    // Search counts are halved after this many searches from untracked sources
+    private static final int DECAY_INTERVAL = 1024;
+
     private final Map<String, Map<String, Flight>> adjacencyList;
+    private final Map<String, Map<String, Flight>> incomingList;
+    private final List<EdgeListener> listeners;
+    private final Map<String, ShortestPathTree> cheapestTrees;
+    private final Map<String, ShortestPathTree> shortestTrees;
+    private final int maxTrackedSources;
+    private final AutoTracking cheapestTracking;
+    private final AutoTracking shortestTracking;
+    private volatile long version;
+
+    /**
+     * Notified whenever the flight stored between two airports changes
+     */
+    public interface EdgeListener {
+        /**
+         * @param previous The flight that was replaced, null if the airports were not connected
+         * @param current The flight now connecting the airports
+         * @param version The graph version after the change
+         */
+        void edgeChanged(Flight previous, Flight current, long version);
+    }
+
+    /**
+     * Sources searched often enough to be tracked automatically, least recently searched first,
+     * and how often the other sources were searched recently
+     */
+    private static final class AutoTracking {
+        final LinkedHashMap<String, Boolean> tracked = new LinkedHashMap<>(16, 0.75f, true);
+        final Map<String, Integer> searches = new HashMap<>();
+        int untrackedSearches;
+    }
 
+    /**
+     * Creates a graph that only keeps shortest path trees for sources passed to {@link #trackSource}
+     */
     public FlightGraph() {
+        this(0);
+    }
+
+    /**
+     * Creates a graph that also tracks sources that are searched from repeatedly
+     * @param maxTrackedSources The maximum number of sources tracked automatically per criterion,
+     * the least recently searched is untracked to make room. 0 disables automatic tracking.
+     */
+    public FlightGraph(int maxTrackedSources) {
+        if (maxTrackedSources < 0) {
+            throw new IllegalArgumentException("Tracked source limit must not be negative");
+        }
         this.adjacencyList = new HashMap<>();
+        this.incomingList = new HashMap<>();
+        this.listeners = new ArrayList<>();
+        this.cheapestTrees = new ConcurrentHashMap<>();
+        this.shortestTrees = new ConcurrentHashMap<>();
+        this.maxTrackedSources = maxTrackedSources;
+        this.cheapestTracking = new AutoTracking();
+        this.shortestTracking = new AutoTracking();
+    }
+
+    public void addListener(EdgeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return A counter increased every time an edge of the graph changes
+     */
+    public long getVersion() {
+        return version;
     }
 
     // In FlightGraph.java
@@ -14,17 +83,27 @@ public class FlightGraph {
         adjacencyList.putIfAbsent(flight.source(), new HashMap<>());
         Map<String, Flight> destinations = adjacencyList.get(flight.source());
         Flight existingFlight = destinations.get(flight.destination());
+        boolean replace;
         if (cheapest){
-            if (existingFlight == null || flight.price() < existingFlight.price()){
-                destinations.put(flight.destination(),flight);
-            }
+            replace = existingFlight == null || flight.price() < existingFlight.price();
         }else{
-            if (existingFlight == null || flight.duration() < existingFlight.duration()) {
-                destinations.put(flight.destination(), flight);
-            }
+            replace = existingFlight == null || flight.duration() < existingFlight.duration();
         }
 
-
+        if (replace) {
+            destinations.put(flight.destination(), flight);
+            incomingList.computeIfAbsent(flight.destination(), k -> new HashMap<>()).put(flight.source(), flight);
+            version++;
+            for (ShortestPathTree tree : cheapestTrees.values()) {
+                tree.edgeChanged(existingFlight, flight);
+            }
+            for (ShortestPathTree tree : shortestTrees.values()) {
+                tree.edgeChanged(existingFlight, flight);
+            }
+            for (EdgeListener listener : listeners) {
+                listener.edgeChanged(existingFlight, flight, version);
+            }
+        }
     }
 
     public Route findShortestRoute(String source, String destination) {
@@ -35,22 +114,126 @@ public class FlightGraph {
         return findOptimalRoute(source, destination, false);
     }
 
+    /**
+     * Keeps a shortest path tree from the source, so searches from it no longer run Dijkstra's
+     * algorithm and edge changes only repair the part of the tree they affect
+     * @param useTime Whether the tree minimises duration instead of price
+     * @return The tree, which is updated by {@link #addFlight}
+     */
+    public ShortestPathTree trackSource(String source, boolean useTime) {
+        return (useTime ? shortestTrees : cheapestTrees).computeIfAbsent(source,
+                s -> new ShortestPathTree(adjacencyList, incomingList, s, useTime));
+    }
+
+    public void untrackSource(String source, boolean useTime) {
+        (useTime ? shortestTrees : cheapestTrees).remove(source);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a node, following edges backwards when reverse is set,
+     * and stops once the remaining nodes are at least the limit away
+     * @return The distance of every node closer than the limit, including the start node
+     */
+    Map<String, Double> distancesWithin(String node, boolean useTime, boolean reverse, double limit) {
+        Map<String, Map<String, Flight>> edges = reverse ? incomingList : adjacencyList;
+        Map<String, Double> settled = new HashMap<>();
+        Map<String, Double> distances = new HashMap<>();
+        PriorityQueue<Map.Entry<String, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        distances.put(node, 0.0);
+        queue.add(Map.entry(node, 0.0));
+
+        while (!queue.isEmpty()) {
+            Map.Entry<String, Double> entry = queue.poll();
+            String current = entry.getKey();
+            double distance = entry.getValue();
+            if (distance >= limit) {
+                break;
+            }
+            if (settled.putIfAbsent(current, distance) != null) {
+                continue;
+            }
+            for (Map.Entry<String, Flight> neighbor : edges.getOrDefault(current, Map.of()).entrySet()) {
+                Flight flight = neighbor.getValue();
+                double newDistance = distance + (useTime ? flight.duration() : flight.price());
+                if (newDistance < distances.getOrDefault(neighbor.getKey(), Double.POSITIVE_INFINITY)) {
+                    distances.put(neighbor.getKey(), newDistance);
+                    queue.add(Map.entry(neighbor.getKey(), newDistance));
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Records a search from the source and starts tracking it once it has been searched from
+     * often enough, untracking the least recently searched automatically tracked source if needed
+     * @return The source's tree, null if it is not tracked
+     */
+    private ShortestPathTree autoTrack(String source, boolean useTime) {
+        ShortestPathTree tree = (useTime ? shortestTrees : cheapestTrees).get(source);
+        AutoTracking tracking = useTime ? shortestTracking : cheapestTracking;
+        synchronized (tracking) {
+            if (tracking.tracked.get(source) != null) {
+                if (tree != null) {
+                    return tree;
+                }
+                // Untracked by the caller since
+                tracking.tracked.remove(source);
+            }
+            if (tree != null) {
+                return tree;
+            }
+
+            if (++tracking.untrackedSearches >= DECAY_INTERVAL) {
+                // Halving forgets sources that were only popular a while ago
+                tracking.untrackedSearches = 0;
+                tracking.searches.replaceAll((s, count) -> count / 2);
+                tracking.searches.values().removeIf(count -> count == 0);
+            }
+            if (tracking.searches.merge(source, 1, Integer::sum) < TRACKING_THRESHOLD) {
+                return null;
+            }
+            tracking.searches.remove(source);
+
+            if (tracking.tracked.size() >= maxTrackedSources) {
+                String coldest = tracking.tracked.keySet().iterator().next();
+                tracking.tracked.remove(coldest);
+                untrackSource(coldest, useTime);
+            }
+            tracking.tracked.put(source, Boolean.TRUE);
+            return trackSource(source, useTime);
+        }
+    }
+
     private Route findOptimalRoute(String source, String destination, boolean useTime ) {
+        ShortestPathTree tree = maxTrackedSources > 0
+                ? autoTrack(source, useTime)
+                : (useTime ? shortestTrees : cheapestTrees).get(source);
+        if (tree != null) {
+            return routeFromTree(tree, destination);
+        }
+
         Map<String, Double> distances = new HashMap<>();
         Map<String, String> previousNodes = new HashMap<>();
-        PriorityQueue<String> queue = new PriorityQueue<>(
-                Comparator.comparingDouble(distances::get)
-        );
+        // Entries carry the distance they were queued with, since changing the distance of a
+        // queued node would break the queue's ordering
+        PriorityQueue<Map.Entry<String, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
 
         // Initialize distances
         for (String node : adjacencyList.keySet()) {
             distances.put(node, Double.POSITIVE_INFINITY);
         }
         distances.put(source, 0.0);
-        queue.add(source);
+        queue.add(Map.entry(source, 0.0));
 
         while (!queue.isEmpty()) {
-            String current = queue.poll();
+            Map.Entry<String, Double> entry = queue.poll();
+            String current = entry.getKey();
+
+            // A shorter distance was found after this entry was queued
+            if (entry.getValue() > distances.get(current)) {
+                continue;
+            }
 
             if (current.equals(destination)) {
                 break;
@@ -69,7 +252,7 @@ public class FlightGraph {
                 if (newDistance < distances.getOrDefault(next, Double.POSITIVE_INFINITY)) {
                     distances.put(next, newDistance);
                     previousNodes.put(next, current);
-                    queue.add(next);
+                    queue.add(Map.entry(next, newDistance));
                 }
             }
         }
@@ -97,4 +280,25 @@ public class FlightGraph {
 
         return route;
     }
+
+    private Route routeFromTree(ShortestPathTree tree, String destination) {
+        Route route = new Route();
+        if (tree.parentOf(destination) == null) {
+            return route; // Return empty route if no path exists
+        }
+
+        Stack<String> path = new Stack<>();
+        for (String current = destination; current != null; current = tree.parentOf(current)) {
+            path.push(current);
+        }
+
+        String prev = path.pop();
+        while (!path.isEmpty()) {
+            String next = path.pop();
+            route.addFlight(adjacencyList.get(prev).get(next));
+            prev = next;
+        }
+
+        return route;
+    }
 }
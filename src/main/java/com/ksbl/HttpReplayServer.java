@@ -0,0 +1,250 @@
+package com.ksbl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP stand-in for the Amadeus and exchange rate APIs.
+ * In record mode every request is forwarded to the real service and the raw response is saved
+ * to the recording directory. In replay mode the saved responses are served back with
+ * configurable latency and injected errors, so no network access is needed.
+ * Point the clients at it with AMADEUS_HOST/AMADEUS_PORT/AMADEUS_SSL and EXCHANGE_RATE_BASE_URL.
+ */
+public class HttpReplayServer {
+
+    public enum Mode { RECORD, REPLAY }
+
+    // The exchange rate API takes its key as the path segment after the version
+    private static final Pattern API_KEY_SEGMENT = Pattern.compile("^/v6/[^/]+");
+
+    // Headers the JDK client manages itself and refuses to forward
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "host", "connection", "content-length", "transfer-encoding", "expect", "upgrade", "accept-encoding");
+
+    private final Mode mode;
+    private final Path directory;
+    private final URI upstream;
+    private final int latencyMillis;
+    private final int jitterMillis;
+    private final double errorRate;
+    private final HttpClient client;
+    private HttpServer server;
+
+    /**
+     * @param mode Whether to record from the upstream or replay from disk
+     * @param directory Directory the responses are stored in
+     * @param upstream Base URL of the real service, only used when recording
+     * @param latencyMillis Fixed delay added to every replayed response
+     * @param jitterMillis Maximum random delay added on top of the fixed latency
+     * @param errorRate Fraction of replayed requests answered with a 503 error
+     * @throws IllegalArgumentException If recording without an upstream or the rates are out of range
+     */
+    public HttpReplayServer(Mode mode, Path directory, URI upstream,
+                            int latencyMillis, int jitterMillis, double errorRate) {
+        if (mode == Mode.RECORD && upstream == null) {
+            throw new IllegalArgumentException("Record mode needs an upstream URL");
+        }
+        if (latencyMillis < 0 || jitterMillis < 0 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Latency cannot be negative and error rate must be between 0 and 1");
+        }
+        this.mode = mode;
+        this.directory = directory;
+        this.upstream = upstream;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.client = HttpClient.newHttpClient();
+    }
+
+    /**
+     * Starts listening on the given port, 0 picks a free one
+     * @return The port the server is bound to
+     */
+    public int start(int port) throws IOException {
+        Files.createDirectories(directory);
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String key = recordingKey(exchange.getRequestMethod(), exchange.getRequestURI());
+            Path file = directory.resolve(hash(key) + ".http");
+            if (mode == Mode.RECORD) {
+                record(exchange, key, file);
+            } else {
+                replay(exchange, file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Error handling stub request: " + e.getMessage());
+        }
+    }
+
+    private void record(HttpExchange exchange, String key, Path file) throws IOException, InterruptedException {
+        byte[] requestBody = exchange.getRequestBody().readAllBytes();
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(upstream.resolve(exchange.getRequestURI().toString()))
+                .method(exchange.getRequestMethod(), requestBody.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> request.header(name, value));
+            }
+        });
+
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            // Answer like a gateway would rather than dropping the connection, and record nothing
+            String detail = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            System.err.println("Error forwarding stub request: " + detail);
+            respond(exchange, 502, "application/json", ("{\"errors\":[{\"status\":502,\"title\":\"Upstream request failed\","
+                    + "\"detail\":\"" + jsonEscape(detail) + "\"}]}").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse("application/json");
+        save(file, response.statusCode(), contentType, response.body());
+        Files.writeString(directory.resolve("index.txt"), file.getFileName() + " " + key + "\n",
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        respond(exchange, response.statusCode(), contentType, response.body());
+    }
+
+    private void replay(HttpExchange exchange, Path file) throws IOException, InterruptedException {
+        exchange.getRequestBody().readAllBytes();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Thread.sleep(latencyMillis + (jitterMillis == 0 ? 0 : random.nextInt(jitterMillis + 1)));
+
+        if (random.nextDouble() < errorRate) {
+            respond(exchange, 503, "application/json",
+                    "{\"errors\":[{\"status\":503,\"title\":\"Injected error\"}]}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (!Files.exists(file)) {
+            respond(exchange, 404, "application/json",
+                    "{\"errors\":[{\"status\":404,\"title\":\"No recording for this request\"}]}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int status = in.readInt();
+            String contentType = in.readUTF();
+            respond(exchange, status, contentType, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Recordings hold the status code and content type followed by the raw body
+     */
+    private static void save(Path file, int status, String contentType, byte[] body) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(status);
+            out.writeUTF(contentType);
+            out.write(body);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    /**
+     * Names a request for recording. The exchange rate API key is masked, so it never reaches the
+     * recording directory and recordings replay whatever key the client is configured with.
+     */
+    static String recordingKey(String method, URI uri) {
+        return method + " " + API_KEY_SEGMENT.matcher(uri.toString()).replaceFirst("/v6/{key}");
+    }
+
+    private static String jsonEscape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String hash(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Usage: HttpReplayServer record|replay --port=8080 --dir=recordings/amadeus
+     * [--upstream=https://test.api.amadeus.com] [--latency=0] [--jitter=0] [--errors=0.0]
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: HttpReplayServer record|replay --port=<port> --dir=<directory> "
+                    + "[--upstream=<url>] [--latency=<ms>] [--jitter=<ms>] [--errors=<rate>]");
+            return;
+        }
+        try {
+            Map<String, String> options = new HashMap<>();
+            for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+                int split = arg.indexOf('=');
+                if (!arg.startsWith("--") || split == -1) {
+                    throw new IllegalArgumentException("Invalid option: " + arg);
+                }
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+
+            Mode mode = Mode.valueOf(args[0].toUpperCase());
+            String upstream = options.get("upstream");
+            HttpReplayServer server = new HttpReplayServer(mode,
+                    Path.of(options.getOrDefault("dir", "recordings")),
+                    upstream == null ? null : URI.create(upstream),
+                    Integer.parseInt(options.getOrDefault("latency", "0")),
+                    Integer.parseInt(options.getOrDefault("jitter", "0")),
+                    Double.parseDouble(options.getOrDefault("errors", "0")));
+            int port = server.start(Integer.parseInt(options.getOrDefault("port", "8080")));
+            System.out.println("Stub server " + mode.name().toLowerCase() + "ing on http://localhost:" + port);
+        } catch (Exception e) {
+            System.err.println("Error starting stub server: " + e.getMessage());
+        }
+    }
+}
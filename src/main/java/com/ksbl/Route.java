@@ -30,7 +30,22 @@ public class Route {
 
     @Override
     public String toString() {
-        CurrencyConversion currencyConversion = new CurrencyConversion();
+        if (flights.isEmpty()){
+            return "";
+        }
+        try {
+            return format(new CurrencyConversion().getExchangeRate());
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Formats the route with its total price converted to PKR
+     * @param eurToPkr The EUR to PKR exchange rate to apply
+     * @return The formatted route, empty if it has no flights
+     */
+    public String format(double eurToPkr) {
         if (flights.isEmpty()){
             return "";
         }
@@ -49,11 +64,7 @@ public class Route {
         }
 
 
-        try {
-            sb.append("\nTotal Price: PKR ").append(String.format("%.2f", currencyConversion.convertEurToPkr(totalPrice)));
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        sb.append("\nTotal Price: PKR ").append(String.format("%.2f", totalPrice * eurToPkr));
 
 
         // Format duration as HH:MM
@@ -0,0 +1,283 @@
+package com.ksbl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of route search results over a {@link FlightGraph}.
+ * Each result is stored with the graph version it was computed at. When an edge changes, only the
+ * results whose path used that edge, or that a path through the cheaper edge now beats, are dropped.
+ * Whether an edge u -> v of weight w beats a result from s to t costing c is decided exactly with
+ * two searches bounded by c - w: one backwards from u and one forwards from v.
+ * Results without a route are kept apart and dropped whenever two airports are newly connected.
+ *
+ * Lookups are lock-free. Graph changes must not run concurrently with searches, as for the graph itself.
+ * Cached routes are shared between callers and must not be modified.
+ */
+public final class RouteCache implements FlightGraph.EdgeListener {
+
+    // Rough per-entry overhead: key, entry, map nodes, route object and list, plus each leg's references
+    private static final int ENTRY_BYTES = 240;
+    private static final int LEG_BYTES = 48;
+
+    private record Key(String source, String destination, boolean useTime) {}
+
+    private static final class Entry {
+        final Key key;
+        final Route route;
+        final double cost;
+        final long version;
+        final long sequence;
+        // Set by lookups and cleared by eviction, which passes over referenced entries once
+        volatile boolean referenced;
+
+        Entry(Key key, Route route, double cost, long version, long sequence) {
+            this.key = key;
+            this.route = route;
+            this.cost = cost;
+            this.version = version;
+            this.sequence = sequence;
+        }
+
+        Key key() { return key; }
+
+        Route route() { return route; }
+
+        double cost() { return cost; }
+
+        long sequence() { return sequence; }
+    }
+
+    private static final Comparator<Entry> BY_COST =
+            Comparator.comparingDouble(Entry::cost).thenComparingLong(Entry::sequence);
+
+    private final FlightGraph graph;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Key, Entry> entries;
+
+    // Write-side indexes, only touched while holding the cache lock
+    private final Map<String, Set<Key>> keysByEdge;
+    private final NavigableSet<Entry> byPrice;
+    private final NavigableSet<Entry> byDuration;
+    private final Set<Key> unreachable;
+    private final ArrayDeque<Entry> evictionOrder;
+    private long sequence;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    /**
+     * Creates a cache and registers it with the graph
+     * @param graph The graph whose results are cached
+     * @param maxEntries The maximum number of cached results. The oldest result not read since
+     * eviction last passed over it is evicted first (second chance), so hot results stay cached.
+     * @throws IllegalArgumentException If the maximum is not positive
+     */
+    public RouteCache(FlightGraph graph, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.graph = graph;
+        this.maxEntries = maxEntries;
+        this.entries = new ConcurrentHashMap<>();
+        this.keysByEdge = new HashMap<>();
+        this.byPrice = new TreeSet<>(BY_COST);
+        this.byDuration = new TreeSet<>(BY_COST);
+        this.unreachable = new HashSet<>();
+        this.evictionOrder = new ArrayDeque<>();
+        graph.addListener(this);
+    }
+
+    public Route findShortestRoute(String source, String destination) {
+        return find(source, destination, true);
+    }
+
+    public Route findCheapestRoute(String source, String destination) {
+        return find(source, destination, false);
+    }
+
+    private Route find(String source, String destination, boolean useTime) {
+        Key key = new Key(source, destination, useTime);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+            // Only write when needed, so hot entries are not written on every hit
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.route();
+        }
+        misses.increment();
+
+        long version = graph.getVersion();
+        Route route = useTime
+                ? graph.findShortestRoute(source, destination)
+                : graph.findCheapestRoute(source, destination);
+        // Routes that do not exist cost nothing to beat
+        double cost = route.getFlights().isEmpty() ? Double.POSITIVE_INFINITY
+                : useTime ? route.getTotalDuration() : route.getTotalPrice();
+        store(key, route, cost, version);
+        return route;
+    }
+
+    private synchronized void store(Key key, Route route, double cost, long version) {
+        // The graph changed during the search, so the result may already be stale
+        if (graph.getVersion() != version || entries.containsKey(key)) {
+            return;
+        }
+        Entry entry = new Entry(key, route, cost, version, sequence++);
+        entries.put(key, entry);
+        if (Double.isInfinite(cost)) {
+            unreachable.add(key);
+        } else {
+            (key.useTime() ? byDuration : byPrice).add(entry);
+        }
+        for (Flight flight : route.getFlights()) {
+            keysByEdge.computeIfAbsent(edge(flight), k -> new HashSet<>()).add(key);
+        }
+        evictionOrder.addLast(entry);
+        estimatedBytes.addAndGet(footprint(entry));
+
+        // Invalidated results stay queued until they reach the front, so compact now and then
+        if (evictionOrder.size() > 2 * maxEntries) {
+            evictionOrder.removeIf(queued -> entries.get(queued.key()) != queued);
+        }
+
+        while (entries.size() > maxEntries) {
+            Entry oldest = evictionOrder.pollFirst();
+            if (oldest == null || entries.get(oldest.key()) != oldest) {
+                continue;
+            }
+            if (oldest.referenced) {
+                // Read since it was queued, so it goes to the back instead of out
+                oldest.referenced = false;
+                evictionOrder.addLast(oldest);
+            } else {
+                remove(oldest);
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void edgeChanged(Flight previous, Flight current, long version) {
+        Set<Key> onPath = keysByEdge.get(edge(current));
+        if (onPath != null) {
+            for (Key key : new ArrayList<>(onPath)) {
+                invalidate(entries.get(key));
+            }
+        }
+        // Only a new edge can connect airports, and checking would mean searching the whole graph
+        if (previous == null) {
+            for (Key key : new ArrayList<>(unreachable)) {
+                invalidate(entries.get(key));
+            }
+        }
+        // A dearer edge only affects the paths that used it, which are gone already
+        if (previous == null || current.price() < previous.price()) {
+            invalidateBeaten(byPrice, current, false);
+        }
+        if (previous == null || current.duration() < previous.duration()) {
+            invalidateBeaten(byDuration, current, true);
+        }
+    }
+
+    private void invalidateBeaten(NavigableSet<Entry> byCost, Flight flight, boolean useTime) {
+        double weight = useTime ? flight.duration() : flight.price();
+        // Results no dearer than the edge itself can never be beaten through it. Every cost in
+        // the set is finite, so the searches below are bounded by the dearest cached route.
+        Entry bound = new Entry(null, null, weight, 0, Long.MAX_VALUE);
+        NavigableSet<Entry> candidates = byCost.tailSet(bound, false);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        double limit = candidates.last().cost() - weight;
+        Map<String, Double> toSource = graph.distancesWithin(flight.source(), useTime, true, limit);
+        Map<String, Double> fromDestination = graph.distancesWithin(flight.destination(), useTime, false, limit);
+        for (Entry entry : new ArrayList<>(candidates)) {
+            Double before = toSource.get(entry.key().source());
+            Double after = fromDestination.get(entry.key().destination());
+            if (before != null && after != null && before + weight + after < entry.cost()) {
+                invalidate(entry);
+            }
+        }
+    }
+
+    private void invalidate(Entry entry) {
+        if (entry != null) {
+            remove(entry);
+            invalidations.increment();
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key(), entry);
+        if (Double.isInfinite(entry.cost())) {
+            unreachable.remove(entry.key());
+        } else {
+            (entry.key().useTime() ? byDuration : byPrice).remove(entry);
+        }
+        for (Flight flight : entry.route().getFlights()) {
+            String edge = edge(flight);
+            Set<Key> keys = keysByEdge.get(edge);
+            if (keys != null) {
+                keys.remove(entry.key());
+                if (keys.isEmpty()) {
+                    keysByEdge.remove(edge);
+                }
+            }
+        }
+        estimatedBytes.addAndGet(-footprint(entry));
+    }
+
+    private static String edge(Flight flight) {
+        return flight.source() + ">" + flight.destination();
+    }
+
+    private static long footprint(Entry entry) {
+        return ENTRY_BYTES + (long) LEG_BYTES * entry.route().getFlights().size();
+    }
+
+    /**
+     * Drops every cached result
+     */
+    public synchronized void clear() {
+        entries.clear();
+        keysByEdge.clear();
+        byPrice.clear();
+        byDuration.clear();
+        unreachable.clear();
+        evictionOrder.clear();
+        estimatedBytes.set(0);
+    }
+
+    public int size() { return entries.size(); }
+
+    public long getHits() { return hits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public long getInvalidations() { return invalidations.sum(); }
+
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * @return The fraction of lookups answered from the cache, 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return An estimate of the heap used by the cached results, in bytes
+     */
+    public long getEstimatedBytes() { return estimatedBytes.get(); }
+}
@@ -0,0 +1,277 @@
+package com.ksbl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serialises routes and flights as JSON or as a compact binary format, writing bytes straight
+ * into a buffer without building intermediate strings. Prices are written from whole cents, and
+ * the total price is the sum of the flights' cents so it always matches the prices listed.
+ *
+ * JSON: {"currency":"EUR","totalPrice":936.54,"totalDuration":1165,"flights":[{"source":"LHE",
+ * "destination":"DXB","airline":"Emirates","price":182.40,"duration":215}]}
+ *
+ * Binary, big endian: int length of the rest of the record, long total price in cents, int total
+ * duration, unsigned short flight count, then per flight source, destination and airline as an
+ * unsigned short byte length followed by UTF-8, long price in cents and int duration.
+ * A flight on its own is written as an int length followed by its flight fields.
+ *
+ * An encoder reuses its buffer between calls and must not be shared between threads.
+ */
+public class RouteEncoder {
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] CURRENCY = ascii("{\"currency\":\"" + CurrencyConversion.PRICE_CURRENCY + "\"");
+    private static final byte[] TOTAL_PRICE = ascii(",\"totalPrice\":");
+    private static final byte[] TOTAL_DURATION = ascii(",\"totalDuration\":");
+    private static final byte[] FLIGHTS = ascii(",\"flights\":[");
+    private static final byte[] SOURCE = ascii("{\"source\":");
+    private static final byte[] DESTINATION = ascii(",\"destination\":");
+    private static final byte[] AIRLINE = ascii(",\"airline\":");
+    private static final byte[] PRICE = ascii(",\"price\":");
+    private static final byte[] DURATION = ascii(",\"duration\":");
+
+    private ByteBuffer buffer;
+
+    public RouteEncoder() {
+        this.buffer = ByteBuffer.allocate(1024);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the route as JSON to the stream
+     * @throws IOException If the stream cannot be written
+     */
+    public void writeJson(Route route, OutputStream out) throws IOException {
+        while (true) {
+            buffer.clear();
+            try {
+                encodeJson(route, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Writes the route in the binary format to the stream
+     * @throws IOException If the stream cannot be written
+     */
+    public void writeBinary(Route route, OutputStream out) throws IOException {
+        while (true) {
+            buffer.clear();
+            try {
+                encodeBinary(route, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Appends the route as JSON at the buffer's position
+     * @return The number of bytes written
+     * @throws BufferOverflowException If the buffer has too little room, its position is then undefined
+     */
+    public int encodeJson(Route route, ByteBuffer out) {
+        int start = out.position();
+        List<Flight> flights = route.getFlights();
+        out.put(CURRENCY);
+        out.put(TOTAL_PRICE);
+        putCents(out, totalCents(flights));
+        out.put(TOTAL_DURATION);
+        putLong(out, route.getTotalDuration());
+        out.put(FLIGHTS);
+        for (int i = 0; i < flights.size(); i++) {
+            if (i > 0) {
+                out.put((byte) ',');
+            }
+            encodeJson(flights.get(i), out);
+        }
+        out.put((byte) ']').put((byte) '}');
+        return out.position() - start;
+    }
+
+    /**
+     * Appends the flight as a JSON object at the buffer's position
+     * @return The number of bytes written
+     * @throws BufferOverflowException If the buffer has too little room, its position is then undefined
+     */
+    public int encodeJson(Flight flight, ByteBuffer out) {
+        int start = out.position();
+        out.put(SOURCE);
+        putJsonString(out, flight.source());
+        out.put(DESTINATION);
+        putJsonString(out, flight.destination());
+        out.put(AIRLINE);
+        putJsonString(out, flight.airline());
+        out.put(PRICE);
+        putCents(out, cents(flight.price()));
+        out.put(DURATION);
+        putLong(out, flight.duration());
+        out.put((byte) '}');
+        return out.position() - start;
+    }
+
+    /**
+     * Appends the route in the binary format at the buffer's position
+     * @return The number of bytes written
+     * @throws BufferOverflowException If the buffer has too little room, its position is then undefined
+     * @throws IllegalArgumentException If the buffer is not big endian or the route has more than 65535 flights
+     */
+    public int encodeBinary(Route route, ByteBuffer out) {
+        requireBigEndian(out);
+        List<Flight> flights = route.getFlights();
+        if (flights.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Too many flights to encode: " + flights.size());
+        }
+        int start = out.position();
+        out.putInt(0);
+        out.putLong(totalCents(flights));
+        out.putInt(route.getTotalDuration());
+        out.putShort((short) flights.size());
+        for (Flight flight : flights) {
+            putFlightFields(out, flight);
+        }
+        out.putInt(start, out.position() - start - Integer.BYTES);
+        return out.position() - start;
+    }
+
+    /**
+     * Appends the flight in the binary format at the buffer's position
+     * @return The number of bytes written
+     * @throws BufferOverflowException If the buffer has too little room, its position is then undefined
+     * @throws IllegalArgumentException If the buffer is not big endian
+     */
+    public int encodeBinary(Flight flight, ByteBuffer out) {
+        requireBigEndian(out);
+        int start = out.position();
+        out.putInt(0);
+        putFlightFields(out, flight);
+        out.putInt(start, out.position() - start - Integer.BYTES);
+        return out.position() - start;
+    }
+
+    // The buffer's own byte order would otherwise silently change the format
+    private static void requireBigEndian(ByteBuffer out) {
+        if (out.order() != ByteOrder.BIG_ENDIAN) {
+            throw new IllegalArgumentException("Binary routes are big endian, the buffer is " + out.order());
+        }
+    }
+
+    private static void putFlightFields(ByteBuffer out, Flight flight) {
+        putBinaryString(out, flight.source());
+        putBinaryString(out, flight.destination());
+        putBinaryString(out, flight.airline());
+        out.putLong(cents(flight.price()));
+        out.putInt(flight.duration());
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // Rounding the route's total instead can differ by a cent, e.g. 100.00 split over three legs
+    private static long totalCents(List<Flight> flights) {
+        long total = 0;
+        for (Flight flight : flights) {
+            total += cents(flight.price());
+        }
+        return total;
+    }
+
+    private static void putBinaryString(ByteBuffer out, String text) {
+        int lengthAt = out.position();
+        out.putShort((short) 0);
+        putUtf8(out, text, false);
+        int length = out.position() - lengthAt - Short.BYTES;
+        if (length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long to encode: " + length + " bytes");
+        }
+        out.putShort(lengthAt, (short) length);
+    }
+
+    private static void putJsonString(ByteBuffer out, String text) {
+        out.put((byte) '"');
+        putUtf8(out, text, true);
+        out.put((byte) '"');
+    }
+
+    /**
+     * Writes the characters as UTF-8, escaping quotes, backslashes and control characters for JSON
+     */
+    private static void putUtf8(ByteBuffer out, String text, boolean escape) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (escape && (c == '"' || c == '\\')) {
+                    out.put((byte) '\\').put((byte) c);
+                } else if (escape && c < 0x20) {
+                    out.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                            .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                } else {
+                    out.put((byte) c);
+                }
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates cannot be encoded and become '?', as String.getBytes does
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes an amount in cents as a decimal with two fraction digits
+     */
+    private static void putCents(ByteBuffer out, long cents) {
+        if (cents < 0) {
+            out.put((byte) '-');
+            cents = -cents;
+        }
+        putLong(out, cents / 100);
+        long fraction = cents % 100;
+        out.put((byte) '.').put((byte) ('0' + fraction / 10)).put((byte) ('0' + fraction % 10));
+    }
+
+    private static void putLong(ByteBuffer out, long value) {
+        if (value < 0) {
+            out.put((byte) '-');
+            value = -value;
+        }
+        if (value < 10) {
+            out.put((byte) ('0' + value));
+            return;
+        }
+        // Digits are written least significant first, then reversed in place
+        int start = out.position();
+        while (value > 0) {
+            out.put((byte) ('0' + value % 10));
+            value /= 10;
+        }
+        for (int left = start, right = out.position() - 1; left < right; left++, right--) {
+            byte digit = out.get(left);
+            out.put(left, out.get(right));
+            out.put(right, digit);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.ksbl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Persistent, memory-mapped store of scheduled flight legs for networks too large to keep on the heap.
+ * Edges are fixed-width records grouped by origin, read in place from the mapped file, so opening a
+ * store only maps it and heap use does not grow with the number of edges.
+ *
+ * File layout, little endian:
+ * <pre>
+ * header   magic int, version int, airport count int, padding int, edge count long, padding long
+ * index    (airport count + 1) longs, the first edge of each origin id
+ * edges    32 byte records: origin int, destination int, price in minor units long,
+ *          departure epoch second long, carrier int, duration in minutes int
+ * </pre>
+ * Airport and carrier ids are dense indexes chosen by the caller, such as positions in a sorted list of codes.
+ */
+public class RouteNetworkStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x4650524E; // "FPRN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int EDGE_BYTES = 32;
+    // Each mapping holds 2^25 edges (1 GiB), keeping every record inside a single buffer.
+    // Offsets within a chunk are ints, so chunks cannot hold more than 2^25 edges.
+    static final int MAX_CHUNK_SHIFT = 25;
+    // Routing queue entries hold the distance above a 24 bit airport id
+    private static final int AIRPORT_BITS = 24;
+    private static final long AIRPORT_MASK = (1L << AIRPORT_BITS) - 1;
+
+    private static final int ORIGIN = 0;
+    private static final int DESTINATION = 4;
+    private static final int PRICE = 8;
+    private static final int DEPARTURE = 16;
+    private static final int CARRIER = 24;
+    private static final int DURATION = 28;
+
+    /**
+     * Receives the fields of one edge without creating any objects
+     */
+    @FunctionalInterface
+    public interface EdgeVisitor {
+        void visit(long edge, int origin, int destination, int carrier, long priceMinor, int duration, long departure);
+    }
+
+    private final int airportCount;
+    private final long edgeCount;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer[] chunks;
+
+    private RouteNetworkStore(int airportCount, long edgeCount, int chunkShift,
+                              MappedByteBuffer index, MappedByteBuffer[] chunks) {
+        this.airportCount = airportCount;
+        this.edgeCount = edgeCount;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.index = index;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Maps an existing store read-only
+     * @param file The store written by a {@link Writer}
+     * @return The opened store
+     * @throws IOException If the file cannot be read or is not a store
+     */
+    public static RouteNetworkStore open(Path file) throws IOException {
+        return open(file, MAX_CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps an existing store read-only, with 2^chunkShift edges per mapping. Small chunks let
+     * tests cross chunk boundaries without multi-gigabyte files.
+     */
+    static RouteNetworkStore open(Path file, int chunkShift) throws IOException {
+        if (chunkShift < 0 || chunkShift > MAX_CHUNK_SHIFT) {
+            throw new IllegalArgumentException("Chunk shift must be between 0 and " + MAX_CHUNK_SHIFT);
+        }
+        long chunkMask = (1L << chunkShift) - 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            // A read may return fewer bytes than asked for, so keep reading until the header is full or the file ends
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a route network store: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported route network store version: " + header.getInt(4));
+            }
+            int airportCount = header.getInt(8);
+            long edgeCount = header.getLong(16);
+            if (airportCount <= 0 || airportCount > AIRPORT_MASK || edgeCount < 0) {
+                throw new IOException("Corrupt route network store header: " + file);
+            }
+
+            long indexBytes = (airportCount + 1L) * Long.BYTES;
+            long dataStart = dataStart(airportCount);
+            if (channel.size() < dataStart + edgeCount * EDGE_BYTES) {
+                throw new IOException("Route network store is truncated: " + file);
+            }
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, indexBytes);
+            index.order(ByteOrder.LITTLE_ENDIAN);
+            if (index.getLong(0) != 0 || index.getLong(airportCount * Long.BYTES) != edgeCount) {
+                throw new IOException("Corrupt route network store index: " + file);
+            }
+
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((edgeCount + chunkMask) >>> chunkShift)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i << chunkShift;
+                long edges = Math.min(chunkMask + 1, edgeCount - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + first * EDGE_BYTES, edges * EDGE_BYTES);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // The mappings stay valid after the channel is closed
+            return new RouteNetworkStore(airportCount, edgeCount, chunkShift, index, chunks);
+        }
+    }
+
+    private static long dataStart(int airportCount) {
+        long end = HEADER_BYTES + (airportCount + 1L) * Long.BYTES;
+        return (end + EDGE_BYTES - 1) / EDGE_BYTES * EDGE_BYTES;
+    }
+
+    public int getAirportCount() { return airportCount; }
+
+    public long getEdgeCount() { return edgeCount; }
+
+    /**
+     * @return The index of the first edge leaving the origin
+     */
+    public long firstEdge(int origin) {
+        return index.getLong(origin * Long.BYTES);
+    }
+
+    /**
+     * @return The index after the last edge leaving the origin
+     */
+    public long endEdge(int origin) {
+        return index.getLong((origin + 1) * Long.BYTES);
+    }
+
+    public int origin(long edge) { return chunk(edge).getInt(offset(edge) + ORIGIN); }
+
+    public int destination(long edge) { return chunk(edge).getInt(offset(edge) + DESTINATION); }
+
+    public int carrier(long edge) { return chunk(edge).getInt(offset(edge) + CARRIER); }
+
+    public long priceMinor(long edge) { return chunk(edge).getLong(offset(edge) + PRICE); }
+
+    public int duration(long edge) { return chunk(edge).getInt(offset(edge) + DURATION); }
+
+    public long departure(long edge) { return chunk(edge).getLong(offset(edge) + DEPARTURE); }
+
+    private MappedByteBuffer chunk(long edge) {
+        return chunks[(int) (edge >>> chunkShift)];
+    }
+
+    private int offset(long edge) {
+        return (int) (edge & chunkMask) * EDGE_BYTES;
+    }
+
+    /**
+     * Visits every edge leaving the origin, in file order
+     */
+    public void forEachFrom(int origin, EdgeVisitor visitor) {
+        visitRange(firstEdge(origin), endEdge(origin), visitor);
+    }
+
+    /**
+     * Visits every edge in the store, in file order
+     */
+    public void forEach(EdgeVisitor visitor) {
+        visitRange(0, edgeCount, visitor);
+    }
+
+    private void visitRange(long from, long to, EdgeVisitor visitor) {
+        for (long edge = from; edge < to; edge++) {
+            MappedByteBuffer chunk = chunk(edge);
+            int offset = offset(edge);
+            visitor.visit(edge, chunk.getInt(offset + ORIGIN), chunk.getInt(offset + DESTINATION),
+                    chunk.getInt(offset + CARRIER), chunk.getLong(offset + PRICE),
+                    chunk.getInt(offset + DURATION), chunk.getLong(offset + DEPARTURE));
+        }
+    }
+
+    /**
+     * Finds the cheapest or shortest path with Dijkstra's algorithm directly over the mapped edges.
+     * Departure times are not taken into account, as in {@link FlightGraph}.
+     * @param source Origin airport id
+     * @param destination Destination airport id
+     * @param useTime Whether to minimise duration instead of price
+     * @return The edge indexes of the path in travel order, empty if there is none
+     */
+    public long[] findRoute(int source, int destination, boolean useTime) {
+        long[] distances = new long[airportCount];
+        long[] previousEdges = new long[airportCount];
+        Arrays.fill(distances, Long.MAX_VALUE);
+        Arrays.fill(previousEdges, -1);
+        distances[source] = 0;
+
+        // Entries are stale once a shorter distance to their airport has been found
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        queue.add(pack(0, source));
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int current = (int) (entry & AIRPORT_MASK);
+            long distance = entry >>> AIRPORT_BITS;
+            if (distance > distances[current]) {
+                continue;
+            }
+            if (current == destination) {
+                break;
+            }
+            for (long edge = firstEdge(current), end = endEdge(current); edge < end; edge++) {
+                int next = destination(edge);
+                long newDistance = distance + (useTime ? duration(edge) : priceMinor(edge));
+                if (newDistance < distances[next]) {
+                    distances[next] = newDistance;
+                    previousEdges[next] = edge;
+                    queue.add(pack(newDistance, next));
+                }
+            }
+        }
+
+        if (source == destination || previousEdges[destination] == -1) {
+            return new long[0];
+        }
+        int hops = 0;
+        for (int node = destination; node != source; node = origin(previousEdges[node])) {
+            hops++;
+        }
+        long[] path = new long[hops];
+        for (int node = destination; node != source; node = origin(previousEdges[node])) {
+            path[--hops] = previousEdges[node];
+        }
+        return path;
+    }
+
+    private static long pack(long distance, int airport) {
+        return distance << AIRPORT_BITS | airport;
+    }
+
+    /**
+     * Mapped buffers are released by the garbage collector once the store is unreachable
+     */
+    @Override
+    public void close() {
+        Arrays.fill(chunks, null);
+    }
+
+    /**
+     * Writes a store sequentially. Edges must be added grouped by origin in ascending id order,
+     * which lets the origin index be built in a single pass.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final long[] firstEdges;
+        private final int airportCount;
+        private long edgeCount;
+        private int lastOrigin;
+
+        /**
+         * @param file The file to create or overwrite
+         * @param airportCount Number of airport ids, every id must be below it
+         * @throws IOException If the file cannot be opened
+         */
+        public Writer(Path file, int airportCount) throws IOException {
+            if (airportCount <= 0 || airportCount > AIRPORT_MASK) {
+                throw new IllegalArgumentException("Airport count must be between 1 and " + AIRPORT_MASK);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(dataStart(airportCount));
+            this.buffer = ByteBuffer.allocateDirect(EDGE_BYTES * 2048).order(ByteOrder.LITTLE_ENDIAN);
+            this.firstEdges = new long[airportCount + 1];
+            this.airportCount = airportCount;
+        }
+
+        /**
+         * Appends one edge
+         * @throws IllegalArgumentException If an id is out of range, a value is negative
+         * or the origin is lower than the previous edge's
+         */
+        public void add(int origin, int destination, int carrier, long priceMinor, int duration, long departure)
+                throws IOException {
+            if (origin < 0 || origin >= airportCount || destination < 0 || destination >= airportCount) {
+                throw new IllegalArgumentException("Airport id out of range");
+            }
+            if (origin < lastOrigin) {
+                throw new IllegalArgumentException("Edges must be added in ascending origin order");
+            }
+            if (priceMinor < 0 || duration < 0) {
+                throw new IllegalArgumentException("Price and duration cannot be negative");
+            }
+            // Origins without edges point at the next origin's first edge
+            while (lastOrigin < origin) {
+                firstEdges[++lastOrigin] = edgeCount;
+            }
+
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putInt(origin).putInt(destination).putLong(priceMinor)
+                    .putLong(departure).putInt(carrier).putInt(duration);
+            edgeCount++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Writes the origin index and header, after which the store can be opened
+         */
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                flush();
+                while (lastOrigin < airportCount) {
+                    firstEdges[++lastOrigin] = edgeCount;
+                }
+
+                ByteBuffer index = ByteBuffer.allocate(firstEdges.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (long firstEdge : firstEdges) {
+                    index.putLong(firstEdge);
+                }
+                index.flip();
+                writeFully(index, HEADER_BYTES);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(airportCount).putInt(0)
+                        .putLong(edgeCount).putLong(0);
+                header.flip();
+                writeFully(header, 0);
+            }
+        }
+
+        private void writeFully(ByteBuffer source, long position) throws IOException {
+            while (source.hasRemaining()) {
+                position += channel.write(source, position);
+            }
+        }
+    }
+}
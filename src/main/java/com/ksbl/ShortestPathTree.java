@@ -0,0 +1,182 @@
+package com.ksbl;
+
+import java.util.*;
+
+/**
+ * Shortest paths from one source to every reachable airport, kept up to date as edges change
+ * instead of being recomputed (after Ramalingam and Reps). A cheaper edge is propagated outwards
+ * from its destination with Dijkstra's algorithm, touching only the airports it improves. A dearer
+ * tree edge invalidates the subtree below it, which is repaired from its unaffected neighbours,
+ * unless the subtree is a large part of the tree, in which case everything is recomputed.
+ */
+public class ShortestPathTree {
+
+    // Above this share of the tree, repairing a subtree costs about as much as starting over
+    private static final double RECOMPUTE_FRACTION = 0.25;
+
+    private final Map<String, Map<String, Flight>> outgoing;
+    private final Map<String, Map<String, Flight>> incoming;
+    private final String source;
+    private final boolean useTime;
+    private final Map<String, Double> distances;
+    private final Map<String, String> parents;
+    private final Map<String, Set<String>> children;
+    private long recomputations;
+    private long repairs;
+
+    private record QueueEntry(String node, double distance) {}
+
+    ShortestPathTree(Map<String, Map<String, Flight>> outgoing, Map<String, Map<String, Flight>> incoming,
+                     String source, boolean useTime) {
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.source = source;
+        this.useTime = useTime;
+        this.distances = new HashMap<>();
+        this.parents = new HashMap<>();
+        this.children = new HashMap<>();
+        recompute();
+    }
+
+    public String getSource() { return source; }
+
+    public boolean usesTime() { return useTime; }
+
+    /**
+     * @return The cost of the best path to the airport, infinite if it cannot be reached
+     */
+    public double distanceTo(String node) {
+        return distances.getOrDefault(node, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return The airport before this one on the best path, null for the source or unreachable airports
+     */
+    public String parentOf(String node) {
+        return parents.get(node);
+    }
+
+    public long getRecomputations() { return recomputations; }
+
+    public long getRepairs() { return repairs; }
+
+    private double weight(Flight flight) {
+        return useTime ? flight.duration() : flight.price();
+    }
+
+    /**
+     * Rebuilds the whole tree with Dijkstra's algorithm
+     */
+    void recompute() {
+        distances.clear();
+        parents.clear();
+        children.clear();
+        distances.put(source, 0.0);
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Comparator.comparingDouble(QueueEntry::distance));
+        queue.add(new QueueEntry(source, 0.0));
+        propagate(queue, null);
+        recomputations++;
+    }
+
+    /**
+     * Settles the queued airports in distance order, relaxing their outgoing edges.
+     * When a region is given, only airports inside it are updated.
+     */
+    private void propagate(PriorityQueue<QueueEntry> queue, Set<String> region) {
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            if (entry.distance() > distanceTo(entry.node())) {
+                continue;
+            }
+            for (Flight flight : outgoing.getOrDefault(entry.node(), Map.of()).values()) {
+                String next = flight.destination();
+                if (region != null && !region.contains(next)) {
+                    continue;
+                }
+                double newDistance = entry.distance() + weight(flight);
+                if (newDistance < distanceTo(next)) {
+                    distances.put(next, newDistance);
+                    setParent(next, entry.node());
+                    queue.add(new QueueEntry(next, newDistance));
+                }
+            }
+        }
+    }
+
+    private void setParent(String node, String parent) {
+        String previous = parents.put(node, parent);
+        if (previous != null) {
+            children.get(previous).remove(node);
+        }
+        children.computeIfAbsent(parent, k -> new HashSet<>()).add(node);
+    }
+
+    /**
+     * Updates the tree after the flight between two airports was replaced
+     * @param previous The replaced flight, null if the airports were not connected
+     * @param current The flight now connecting the airports
+     */
+    void edgeChanged(Flight previous, Flight current) {
+        double oldWeight = previous == null ? Double.POSITIVE_INFINITY : weight(previous);
+        double newWeight = weight(current);
+        String from = current.source();
+        String to = current.destination();
+
+        if (newWeight < oldWeight) {
+            double candidate = distanceTo(from) + newWeight;
+            if (candidate < distanceTo(to)) {
+                distances.put(to, candidate);
+                setParent(to, from);
+                PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Comparator.comparingDouble(QueueEntry::distance));
+                queue.add(new QueueEntry(to, candidate));
+                propagate(queue, null);
+                repairs++;
+            }
+        } else if (newWeight > oldWeight && from.equals(parents.get(to))) {
+            increaseTreeEdge(to);
+        }
+    }
+
+    private void increaseTreeEdge(String root) {
+        // Every airport reached through the dearer edge may now have a better path elsewhere
+        Set<String> affected = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            String node = pending.pop();
+            affected.add(node);
+            pending.addAll(children.getOrDefault(node, Set.of()));
+        }
+        if (affected.size() > RECOMPUTE_FRACTION * distances.size()) {
+            recompute();
+            return;
+        }
+
+        for (String node : affected) {
+            distances.remove(node);
+            String parent = parents.remove(node);
+            children.get(parent).remove(node);
+        }
+
+        // Seed each affected airport with its best edge from the unaffected part of the tree
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Comparator.comparingDouble(QueueEntry::distance));
+        for (String node : affected) {
+            for (Flight flight : incoming.getOrDefault(node, Map.of()).values()) {
+                String parent = flight.source();
+                if (affected.contains(parent) || !distances.containsKey(parent)) {
+                    continue;
+                }
+                double candidate = distances.get(parent) + weight(flight);
+                if (candidate < distanceTo(node)) {
+                    distances.put(node, candidate);
+                    setParent(node, parent);
+                }
+            }
+            if (distances.containsKey(node)) {
+                queue.add(new QueueEntry(node, distances.get(node)));
+            }
+        }
+        propagate(queue, affected);
+        repairs++;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ksbl;
+
+import java.io.IOException;
+import java.util.OptionalDouble;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Loads the reference data, connects the flight API and fetches the exchange rate in the
+ * background as soon as the application starts, so the work overlaps with user input
+ * (or with server and batch start-up) instead of happening after it.
+ */
+public class StartupOrchestrator {
+
+    private final CompletableFuture<AirportLoader> airportLoader;
+    private final CompletableFuture<AirlineLoader> airlineLoader;
+    private final CompletableFuture<FlightAPIService> apiService;
+    private final CompletableFuture<Double> exchangeRate;
+
+    /**
+     * Starts every warm-up task on virtual threads
+     * @param apiServiceFactory Creates the flight API client, called in the background
+     */
+    public StartupOrchestrator(Supplier<FlightAPIService> apiServiceFactory) {
+        this(apiServiceFactory, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Starts every warm-up task on the given executor, which is left running
+     * @param apiServiceFactory Creates the flight API client, called in the background
+     * @param executor Executor the warm-up tasks run on
+     */
+    public StartupOrchestrator(Supplier<FlightAPIService> apiServiceFactory, Executor executor) {
+        this(apiServiceFactory, executor, false);
+    }
+
+    private StartupOrchestrator(Supplier<FlightAPIService> apiServiceFactory, Executor executor, boolean ownsExecutor) {
+        this.airportLoader = CompletableFuture.supplyAsync(AirportLoader::getInstance, executor);
+        this.airlineLoader = CompletableFuture.supplyAsync(AirlineLoader::getInstance, executor);
+        this.apiService = CompletableFuture.supplyAsync(() -> {
+            FlightAPIService service = apiServiceFactory.get();
+            service.warmUp();
+            return service;
+        }, executor);
+        this.exchangeRate = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new CurrencyConversion().getExchangeRate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+
+        // Nothing else can submit to an executor created here, so it is shut down after the last task
+        if (ownsExecutor && executor instanceof ExecutorService owned) {
+            CompletableFuture.allOf(airportLoader, airlineLoader, apiService, exchangeRate)
+                    .whenComplete((done, error) -> owned.shutdown());
+        }
+    }
+
+    /**
+     * @return A future completing once every warm-up task has finished, successfully or not
+     */
+    public CompletableFuture<Void> ready() {
+        return CompletableFuture.allOf(airportLoader, airlineLoader, apiService, exchangeRate)
+                .exceptionally(e -> null);
+    }
+
+    /**
+     * Waits for the airport data to load
+     */
+    public Airports getAirports() {
+        await(airportLoader);
+        return new Airports();
+    }
+
+    /**
+     * Waits for the airline data to load
+     */
+    public AirlineLoader getAirlines() {
+        return await(airlineLoader);
+    }
+
+    /**
+     * Waits for the flight API client to be created and warmed up
+     * @throws IllegalStateException If the client could not be created
+     */
+    public FlightAPIService getApiService() {
+        return await(apiService);
+    }
+
+    /**
+     * Waits for the EUR to PKR exchange rate
+     * @throws IOException If the rate could not be fetched
+     */
+    public double getExchangeRate() throws IOException {
+        try {
+            return exchangeRate.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to fetch the exchange rate: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * @return The EUR to PKR exchange rate without waiting, empty while it is still being fetched or if fetching failed
+     */
+    public OptionalDouble getExchangeRateIfReady() {
+        return exchangeRate.isDone() && !exchangeRate.isCompletedExceptionally()
+                ? OptionalDouble.of(exchangeRate.join())
+                : OptionalDouble.empty();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
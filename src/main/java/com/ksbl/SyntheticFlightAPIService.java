@@ -0,0 +1,220 @@
+package com.ksbl;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Offline {@link FlightAPIService} backed by a generated hub-and-spoke network.
+ * The network is built from the airports and airlines in the CSV files and is fully
+ * determined by the seed, so the same configuration always produces the same flights.
+ */
+public class SyntheticFlightAPIService implements FlightAPIService {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double BASE_FARE = 40.0;
+    private static final double FARE_PER_KM = 0.09;
+    private static final int GROUND_MINUTES = 30;
+    private static final double CRUISE_KM_PER_MINUTE = 13.5;
+    private static final int PARTS = 4;
+
+    private final long seed;
+    private final List<Airport> airports;
+    private final List<Airport> hubs;
+    private final Map<String, Map<String, Flight>> network;
+
+    /**
+     * Generates a network over every known airport
+     * @param seed Seed for hub selection, carriers and fares
+     * @param hubCount Number of airports acting as hubs
+     * @param hubsPerSpoke Number of nearest hubs each spoke airport is linked to
+     */
+    public SyntheticFlightAPIService(long seed, int hubCount, int hubsPerSpoke) {
+        this(seed, Integer.MAX_VALUE, hubCount, hubsPerSpoke);
+    }
+
+    /**
+     * Generates a network over a seeded sample of the known airports
+     * @param seed Seed for airport sampling, hub selection, carriers and fares
+     * @param airportCount Number of airports to include in the network
+     * @param hubCount Number of airports acting as hubs
+     * @param hubsPerSpoke Number of nearest hubs each spoke airport is linked to
+     * @throws IllegalArgumentException If the counts are not positive
+     */
+    public SyntheticFlightAPIService(long seed, int airportCount, int hubCount, int hubsPerSpoke) {
+        if (airportCount <= 0 || hubCount <= 0 || hubsPerSpoke <= 0) {
+            throw new IllegalArgumentException("Airport, hub and spoke counts must be positive");
+        }
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<Airport> all = new ArrayList<>(AirportLoader.getInstance().getAirports().values());
+        all.sort(Comparator.comparing(Airport::IATA));
+        shuffle(all, random);
+        this.airports = List.copyOf(all.subList(0, Math.min(airportCount, all.size())));
+        this.hubs = airports.subList(0, Math.min(hubCount, airports.size()));
+
+        List<String> carriers = new ArrayList<>();
+        for (Airline airline : AirlineLoader.getInstance().airlines.values()) {
+            carriers.add(airline.name());
+        }
+        Collections.sort(carriers);
+
+        this.network = new HashMap<>();
+        buildNetwork(random, carriers, Math.min(hubsPerSpoke, hubs.size()));
+    }
+
+    private void buildNetwork(SplittableRandom random, List<String> carriers, int hubsPerSpoke) {
+        // Hubs are fully meshed with each other
+        for (Airport from : hubs) {
+            for (Airport to : hubs) {
+                if (from != to) {
+                    link(from, to, carriers.get(random.nextInt(carriers.size())), random);
+                }
+            }
+        }
+
+        // Every other airport is linked both ways to its nearest hubs
+        for (Airport spoke : airports.subList(hubs.size(), airports.size())) {
+            List<Airport> nearest = new ArrayList<>(hubs);
+            nearest.sort(Comparator.comparingDouble(hub -> distanceKm(spoke, hub)));
+            for (Airport hub : nearest.subList(0, hubsPerSpoke)) {
+                String carrier = carriers.get(random.nextInt(carriers.size()));
+                link(spoke, hub, carrier, random);
+                link(hub, spoke, carrier, random);
+            }
+        }
+    }
+
+    private void link(Airport from, Airport to, String carrier, SplittableRandom random) {
+        double distance = distanceKm(from, to);
+        // Fares vary by up to 25% either way around the distance-based price
+        double price = (BASE_FARE + FARE_PER_KM * distance) * (0.75 + random.nextDouble() * 0.5);
+        int duration = GROUND_MINUTES + (int) Math.round(distance / CRUISE_KM_PER_MINUTE);
+        network.computeIfAbsent(from.IATA(), k -> new HashMap<>())
+                .put(to.IATA(), new Flight(from.IATA(), to.IATA(), Math.round(price * 100) / 100.0, duration, carrier));
+    }
+
+    /**
+     * Offers are every itinerary of up to three legs between the two airports, cheapest first.
+     * Fares are adjusted per date so different days return different but repeatable prices.
+     */
+    @Override
+    public List<Flight> searchFlights(String origin, String destination, LocalDate date, int routes) {
+        return price(cheapestOffers(origin, destination, routes), date);
+    }
+
+    /**
+     * The same offers as {@link #searchFlights}, split cheapest first into up to {@value #PARTS} parts.
+     * Offers are ranked once by whichever part runs first, and each part prices only its own share.
+     */
+    @Override
+    public List<Callable<List<Flight>>> searchFlightsInParts(String origin, String destination, LocalDate date, int routes) {
+        FutureTask<List<List<Flight>>> ranked = new FutureTask<>(() -> cheapestOffers(origin, destination, routes));
+        int count = Math.max(1, Math.min(PARTS, routes));
+        List<Callable<List<Flight>>> parts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int part = i;
+            parts.add(() -> {
+                // Does nothing if another part has already started ranking, get then waits for it
+                ranked.run();
+                List<List<Flight>> offers = ranked.get();
+                return price(offers.subList(offers.size() * part / count, offers.size() * (part + 1) / count), date);
+            });
+        }
+        return parts;
+    }
+
+    private List<List<Flight>> cheapestOffers(String origin, String destination, int routes) {
+        List<List<Flight>> offers = new ArrayList<>();
+        for (Flight first : network.getOrDefault(origin, Map.of()).values()) {
+            offers.addAll(offersStartingWith(first, origin, destination));
+        }
+        offers.sort(Comparator.comparingDouble(SyntheticFlightAPIService::totalPrice));
+        return offers.subList(0, Math.min(Math.max(routes, 0), offers.size()));
+    }
+
+    private List<List<Flight>> offersStartingWith(Flight first, String origin, String destination) {
+        List<List<Flight>> offers = new ArrayList<>();
+        if (first.destination().equals(destination)) {
+            offers.add(List.of(first));
+            return offers;
+        }
+        Map<String, Flight> fromFirst = network.getOrDefault(first.destination(), Map.of());
+        Flight second = fromFirst.get(destination);
+        if (second != null) {
+            offers.add(List.of(first, second));
+        }
+        for (Flight middle : fromFirst.values()) {
+            if (middle.destination().equals(origin) || middle.destination().equals(destination)) {
+                continue;
+            }
+            Flight last = network.getOrDefault(middle.destination(), Map.of()).get(destination);
+            if (last != null) {
+                offers.add(List.of(first, middle, last));
+            }
+        }
+        return offers;
+    }
+
+    private List<Flight> price(List<List<Flight>> offers, LocalDate date) {
+        List<Flight> flights = new ArrayList<>();
+        for (List<Flight> offer : offers) {
+            for (Flight leg : offer) {
+                flights.add(new Flight(leg.source(), leg.destination(),
+                        Math.round(leg.price() * dateFactor(leg, date) * 100) / 100.0,
+                        leg.duration(), leg.airline()));
+            }
+        }
+        return flights;
+    }
+
+    /**
+     * @return Every leg in the generated network
+     */
+    public List<Flight> getNetwork() {
+        List<Flight> flights = new ArrayList<>();
+        for (Map<String, Flight> destinations : network.values()) {
+            flights.addAll(destinations.values());
+        }
+        flights.sort(Comparator.comparing(Flight::source).thenComparing(Flight::destination));
+        return flights;
+    }
+
+    public List<Airport> getAirports() { return airports; }
+
+    public List<Airport> getHubs() { return hubs; }
+
+    private double dateFactor(Flight leg, LocalDate date) {
+        long mixed = seed ^ date.toEpochDay() * 0x9E3779B97F4A7C15L
+                ^ leg.source().hashCode() * 31L ^ leg.destination().hashCode();
+        return 0.9 + new SplittableRandom(mixed).nextDouble() * 0.2;
+    }
+
+    private static double totalPrice(List<Flight> offer) {
+        double total = 0;
+        for (Flight leg : offer) {
+            total += leg.price();
+        }
+        return total;
+    }
+
+    private static void shuffle(List<Airport> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * Great-circle distance between two airports using the haversine formula
+     */
+    static double distanceKm(Airport from, Airport to) {
+        double dLat = Math.toRadians(to.latitude() - from.latitude());
+        double dLon = Math.toRadians(to.longitude() - from.longitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(from.latitude())) * Math.cos(Math.toRadians(to.latitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ksbl;
+
+import java.io.IOException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Parsing of exchange rate API responses, without calling the API.
+ */
+public class CurrencyConversionTest extends TestCase {
+
+    public CurrencyConversionTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(CurrencyConversionTest.class);
+    }
+
+    public void testParseRateTable() throws IOException {
+        ExchangeRateTable table = CurrencyConversion.parseRateTable("{\"result\":\"success\",\"base_code\":\"EUR\","
+                + "\"conversion_rates\":{\"EUR\":1,\"PKR\":300.5,\"JPY\":160.25,\"KWD\":0.33}}");
+        assertEquals("EUR", table.getBaseCurrency());
+        assertEquals(4, table.size());
+        assertEquals(300.5, table.rate(table.currencyId("EUR"), table.currencyId("PKR")), 1e-12);
+        assertEquals(160.25 / 300.5, table.rate(table.currencyId("PKR"), table.currencyId("JPY")), 1e-12);
+    }
+
+    public void testUnsuccessfulResult() {
+        assertParseFails("{\"result\":\"error\",\"error-type\":\"invalid-key\"}");
+    }
+
+    public void testMalformedResponses() {
+        assertParseFails("not json");
+        assertParseFails("{\"result\":\"success\",\"base_code\":\"EUR\"}");
+        assertParseFails("{\"result\":\"success\",\"base_code\":\"EUR\",\"conversion_rates\":{\"EUR\":1,\"PKR\":\"abc\"}}");
+        // The base currency must have a rate of its own
+        assertParseFails("{\"result\":\"success\",\"base_code\":\"EUR\",\"conversion_rates\":{\"PKR\":300.5}}");
+    }
+
+    private static void assertParseFails(String json) {
+        try {
+            CurrencyConversion.parseRateTable(json);
+            fail("Expected an IOException for " + json);
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+}
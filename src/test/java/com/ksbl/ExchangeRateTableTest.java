@@ -0,0 +1,90 @@
+package com.ksbl;
+
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Conversion in minor units between currencies with 0, 2 and 3 fraction digits.
+ */
+public class ExchangeRateTableTest extends TestCase {
+
+    private ExchangeRateTable table;
+    private int eur;
+    private int pkr;
+    private int jpy;
+    private int kwd;
+
+    public ExchangeRateTableTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ExchangeRateTableTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        table = new ExchangeRateTable("EUR", Map.of("EUR", 1.0, "PKR", 300.0, "JPY", 160.0, "KWD", 0.33));
+        eur = table.currencyId("EUR");
+        pkr = table.currencyId("PKR");
+        jpy = table.currencyId("JPY");
+        kwd = table.currencyId("KWD");
+    }
+
+    public void testToMinorUnits() {
+        assertEquals(12346, table.toMinorUnits(123.456, eur));
+        assertEquals(123, table.toMinorUnits(123.456, jpy));
+        assertEquals(123456, table.toMinorUnits(123.456, kwd));
+    }
+
+    public void testConvertScalesMinorUnits() {
+        // 10.00 EUR is 1600 yen, which has no minor unit
+        assertEquals(1600, table.convert(new long[] {1000}, eur, jpy, new long[1])[0]);
+        // 10.00 EUR is 3.300 dinar, with three fraction digits
+        assertEquals(3300, table.convert(new long[] {1000}, eur, kwd, new long[1])[0]);
+        // 1600 yen back to 10.00 EUR
+        assertEquals(1000, table.convert(new long[] {1600}, jpy, eur, new long[1])[0]);
+        // 3.300 dinar is 3000.00 rupees
+        assertEquals(300000, table.convert(new long[] {3300}, kwd, pkr, new long[1])[0]);
+    }
+
+    public void testConvertRoundsToNearest() {
+        // 0.03 EUR is 4.8 yen and 0.01 EUR is 1.6 yen
+        assertEquals(5, table.convert(new long[] {3}, eur, jpy, new long[1])[0]);
+        assertEquals(2, table.convert(new long[] {1}, eur, jpy, new long[1])[0]);
+        // 0.01 EUR is 0.0033 dinar, 3.3 of its thousandths
+        assertEquals(3, table.convert(new long[] {1}, eur, kwd, new long[1])[0]);
+    }
+
+    public void testConvertInPlace() {
+        long[] amounts = {100, 250, 0};
+        assertSame(amounts, table.convert(amounts, eur, pkr, amounts));
+        assertEquals(30000, amounts[0]);
+        assertEquals(75000, amounts[1]);
+        assertEquals(0, amounts[2]);
+    }
+
+    public void testRejectsBadInput() {
+        try {
+            table.currencyId("XYZ");
+            fail("Unknown currencies must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+        try {
+            table.convert(new long[2], eur, pkr, new long[1]);
+            fail("A short output array must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+        try {
+            new ExchangeRateTable("EUR", Map.of("EUR", 1.0, "PKR", 0.0));
+            fail("Rates must be positive");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+}
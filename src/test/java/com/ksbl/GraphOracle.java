@@ -0,0 +1,88 @@
+package com.ksbl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Adds flights to a graph under test and remembers every edge the graph kept, so results
+ * can be checked against a fresh search on a plain graph built from the same edges.
+ */
+final class GraphOracle {
+
+    private final FlightGraph graph;
+    private final Map<String, Flight> edges;
+
+    GraphOracle(FlightGraph graph) {
+        this.graph = graph;
+        this.edges = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds the flight to the graph, remembering it only if the graph kept it
+     * @return Whether the graph kept the flight
+     */
+    boolean add(Flight flight, boolean cheapest) {
+        long version = graph.getVersion();
+        graph.addFlight(flight, cheapest);
+        if (graph.getVersion() == version) {
+            return false;
+        }
+        edges.put(flight.source() + ">" + flight.destination(), flight);
+        return true;
+    }
+
+    Flight edge(String source, String destination) {
+        return edges.get(source + ">" + destination);
+    }
+
+    /**
+     * @return A new graph holding the same edges
+     */
+    FlightGraph copy(int maxTrackedSources) {
+        FlightGraph copy = new FlightGraph(maxTrackedSources);
+        for (Flight flight : edges.values()) {
+            copy.addFlight(flight, true);
+        }
+        return copy;
+    }
+
+    static double cost(Route route, boolean useTime) {
+        if (route.getFlights().isEmpty()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return useTime ? route.getTotalDuration() : route.getTotalPrice();
+    }
+
+    /**
+     * @return The cost of the best route on a fresh graph, infinite if there is none
+     */
+    double expectedCost(String source, String destination, boolean useTime) {
+        FlightGraph fresh = copy(0);
+        return cost(useTime ? fresh.findShortestRoute(source, destination)
+                : fresh.findCheapestRoute(source, destination), useTime);
+    }
+
+    /**
+     * Adds a new edge between two random airports, or makes the existing one cheaper,
+     * or dearer but a minute faster so the duration criterion keeps it
+     * @return Whether the graph changed
+     */
+    boolean randomChange(SplittableRandom random, List<String> airports) {
+        String source = airports.get(random.nextInt(airports.size()));
+        String destination = airports.get(random.nextInt(airports.size()));
+        if (source.equals(destination)) {
+            return false;
+        }
+        Flight existing = edge(source, destination);
+        if (existing == null) {
+            return add(new Flight(source, destination, 5 + random.nextInt(500), 60 + random.nextInt(400), "Test"), true);
+        } else if (random.nextBoolean()) {
+            return add(new Flight(source, destination, existing.price() * 0.8, existing.duration(), "Test"), true);
+        } else if (existing.duration() > 1) {
+            return add(new Flight(source, destination, existing.price() * 1.5, existing.duration() - 1, "Test"), false);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ksbl;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks that recordings never contain the exchange rate API key and replay under any key.
+ */
+public class HttpReplayServerTest extends TestCase {
+
+    public HttpReplayServerTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(HttpReplayServerTest.class);
+    }
+
+    public void testRecordingKeyMasksApiKey() {
+        assertEquals("GET /v6/{key}/latest/EUR",
+                HttpReplayServer.recordingKey("GET", URI.create("/v6/0123secret/latest/EUR")));
+        assertEquals(HttpReplayServer.recordingKey("GET", URI.create("/v6/first/latest/EUR")),
+                HttpReplayServer.recordingKey("GET", URI.create("/v6/second/latest/EUR")));
+    }
+
+    public void testRecordingKeyKeepsOtherPaths() {
+        assertEquals("GET /v2/shopping/flight-offers?originLocationCode=LHE",
+                HttpReplayServer.recordingKey("GET", URI.create("/v2/shopping/flight-offers?originLocationCode=LHE")));
+    }
+
+    public void testRecordedWithOneKeyReplaysWithAnother() throws Exception {
+        Path directory = Files.createTempDirectory("recordings");
+        HttpServer upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.createContext("/", exchange -> {
+            byte[] body = "{\"result\":\"success\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        upstream.start();
+
+        HttpReplayServer recorder = new HttpReplayServer(HttpReplayServer.Mode.RECORD, directory,
+                URI.create("http://localhost:" + upstream.getAddress().getPort()), 0, 0, 0);
+        HttpReplayServer replayer = new HttpReplayServer(HttpReplayServer.Mode.REPLAY, directory, null, 0, 0, 0);
+        try {
+            int port = recorder.start(0);
+            assertEquals(200, get(port, "/v6/recording-secret/latest/EUR").statusCode());
+            recorder.stop();
+
+            String index = Files.readString(directory.resolve("index.txt"));
+            assertFalse(index, index.contains("recording-secret"));
+
+            port = replayer.start(0);
+            HttpResponse<String> replayed = get(port, "/v6/other-key/latest/EUR");
+            assertEquals(200, replayed.statusCode());
+            assertEquals("{\"result\":\"success\"}", replayed.body());
+        } finally {
+            recorder.stop();
+            replayer.stop();
+            upstream.stop(0);
+        }
+    }
+
+    private static HttpResponse<String> get(int port, String path) throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,140 @@
+package com.ksbl;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks that cached routes always match a fresh search on an uncached graph
+ * after edges get cheaper, get dearer and are newly added.
+ */
+public class RouteCacheTest extends TestCase {
+
+    private static final List<String> AIRPORTS = List.of("LHE", "KHI", "DXB", "DOH", "IST", "LHR", "JFK");
+
+    private FlightGraph graph;
+    private RouteCache cache;
+    private GraphOracle oracle;
+
+    public RouteCacheTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteCacheTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        graph = new FlightGraph();
+        cache = new RouteCache(graph, 1000);
+        oracle = new GraphOracle(graph);
+        add(new Flight("LHE", "KHI", 80, 100, "PIA"), true);
+        add(new Flight("LHE", "DXB", 200, 200, "Emirates"), true);
+        add(new Flight("KHI", "DXB", 90, 120, "PIA"), true);
+        add(new Flight("KHI", "DOH", 150, 150, "Qatar Airways"), true);
+        add(new Flight("DXB", "IST", 180, 250, "Emirates"), true);
+        add(new Flight("DOH", "IST", 120, 230, "Qatar Airways"), true);
+        add(new Flight("DXB", "LHR", 400, 450, "Emirates"), true);
+        add(new Flight("IST", "LHR", 100, 240, "Turkish Airlines"), true);
+        add(new Flight("LHE", "IST", 500, 360, "Turkish Airlines"), true);
+        // Nothing flies into JFK yet, so every search for it finds no route
+        add(new Flight("JFK", "LHR", 300, 420, "British Airways"), true);
+    }
+
+    private void add(Flight flight, boolean cheapest) {
+        oracle.add(flight, cheapest);
+    }
+
+    private void queryAll() {
+        for (String source : AIRPORTS) {
+            for (String destination : AIRPORTS) {
+                if (!source.equals(destination)) {
+                    cache.findCheapestRoute(source, destination);
+                    cache.findShortestRoute(source, destination);
+                }
+            }
+        }
+    }
+
+    private void assertMatchesFreshSearch() {
+        for (String source : AIRPORTS) {
+            for (String destination : AIRPORTS) {
+                if (source.equals(destination)) {
+                    continue;
+                }
+                assertEquals("price " + source + " -> " + destination, oracle.expectedCost(source, destination, false),
+                        GraphOracle.cost(cache.findCheapestRoute(source, destination), false), 1e-9);
+                assertEquals("duration " + source + " -> " + destination, oracle.expectedCost(source, destination, true),
+                        GraphOracle.cost(cache.findShortestRoute(source, destination), true), 1e-9);
+            }
+        }
+    }
+
+    public void testCheaperEdge() {
+        queryAll();
+        // LHE -> KHI -> DOH -> IST ties with the route through DXB until KHI -> DOH gets cheaper
+        add(new Flight("KHI", "DOH", 40, 150, "Qatar Airways"), true);
+        assertTrue(cache.getInvalidations() > 0);
+        assertTrue("unaffected results are kept", cache.size() > 0);
+        assertMatchesFreshSearch();
+    }
+
+    public void testDearerEdge() {
+        queryAll();
+        // Dearer but faster, so the duration graph keeps it
+        add(new Flight("KHI", "DXB", 260, 110, "PIA"), false);
+        assertMatchesFreshSearch();
+    }
+
+    public void testNewEdgeResolvesCachedNoRoute() {
+        assertTrue(cache.findCheapestRoute("LHE", "JFK").getFlights().isEmpty());
+        assertTrue(cache.findShortestRoute("LHE", "JFK").getFlights().isEmpty());
+        queryAll();
+
+        add(new Flight("LHR", "JFK", 350, 480, "British Airways"), true);
+        assertFalse(cache.findCheapestRoute("LHE", "JFK").getFlights().isEmpty());
+        assertMatchesFreshSearch();
+    }
+
+    public void testNoRouteKeptWhenExistingEdgeChanges() {
+        cache.findCheapestRoute("LHE", "JFK");
+        long hits = cache.getHits();
+
+        // Changing an existing edge cannot connect JFK
+        add(new Flight("IST", "LHR", 60, 240, "Turkish Airlines"), true);
+        assertTrue(cache.findCheapestRoute("LHE", "JFK").getFlights().isEmpty());
+        assertEquals(hits + 1, cache.getHits());
+    }
+
+    public void testHotResultSurvivesEviction() {
+        RouteCache small = new RouteCache(graph, 4);
+        small.findCheapestRoute("LHE", "LHR");
+        // A cold result is stored between every read, so FIFO eviction would drop the hot one
+        List<String> cold = List.of("DXB", "DOH", "IST", "LHR", "JFK");
+        for (String destination : cold) {
+            assertFalse(small.findCheapestRoute("LHE", "LHR").getFlights().isEmpty());
+            small.findCheapestRoute("KHI", destination);
+        }
+        assertEquals(4, small.size());
+        assertTrue(small.getEvictions() > 0);
+        // Only the first read of the hot result missed
+        assertEquals(1 + cold.size(), small.getMisses());
+        assertEquals(cold.size(), small.getHits());
+    }
+
+    public void testRandomChanges() {
+        SplittableRandom random = new SplittableRandom(42);
+        queryAll();
+        for (int round = 0; round < 20; round++) {
+            for (int change = 0; change < 3; change++) {
+                oracle.randomChange(random, AIRPORTS);
+            }
+            assertMatchesFreshSearch();
+        }
+        assertTrue(cache.getHits() > 0);
+    }
+}
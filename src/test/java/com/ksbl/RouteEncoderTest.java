@@ -0,0 +1,183 @@
+package com.ksbl;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Parses the JSON output with Gson and decodes the binary output by its documented layout.
+ */
+public class RouteEncoderTest extends TestCase {
+
+    private RouteEncoder encoder;
+
+    public RouteEncoderTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteEncoderTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        encoder = new RouteEncoder();
+    }
+
+    private static Route route(Flight... flights) {
+        Route route = new Route();
+        for (Flight flight : flights) {
+            route.addFlight(flight);
+        }
+        return route;
+    }
+
+    private static JsonObject parse(byte[] json) {
+        String text = new String(json, StandardCharsets.UTF_8);
+        for (char c : text.toCharArray()) {
+            assertTrue("unescaped control character in " + text, c >= 0x20);
+        }
+        return JsonParser.parseString(text).getAsJsonObject();
+    }
+
+    private byte[] json(Route route) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeJson(route, out);
+        return out.toByteArray();
+    }
+
+    private byte[] binary(Route route) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeBinary(route, out);
+        return out.toByteArray();
+    }
+
+    public void testJsonStringsRoundTrip() throws IOException {
+        List<String> airlines = List.of(
+                "Türk Hava Yolları",
+                "中国国际航空",
+                "Emoji 😀 Air",
+                "Say \"hi\" \\ back",
+                "Tab\tNew line\nBell\u0007 Delete\u007F");
+        Flight[] flights = new Flight[airlines.size()];
+        for (int i = 0; i < flights.length; i++) {
+            flights[i] = new Flight("LHE", "DXB", 10 + i, 100 + i, airlines.get(i));
+        }
+
+        JsonObject json = parse(json(route(flights)));
+        assertEquals(CurrencyConversion.PRICE_CURRENCY, json.get("currency").getAsString());
+        assertEquals(new BigDecimal("60.00"), json.get("totalPrice").getAsBigDecimal());
+        assertEquals(510, json.get("totalDuration").getAsInt());
+        JsonArray encoded = json.getAsJsonArray("flights");
+        assertEquals(airlines.size(), encoded.size());
+        for (int i = 0; i < flights.length; i++) {
+            JsonObject flight = encoded.get(i).getAsJsonObject();
+            assertEquals("LHE", flight.get("source").getAsString());
+            assertEquals("DXB", flight.get("destination").getAsString());
+            assertEquals(airlines.get(i), flight.get("airline").getAsString());
+            assertEquals(new BigDecimal((10 + i) + ".00"), flight.get("price").getAsBigDecimal());
+            assertEquals(100 + i, flight.get("duration").getAsInt());
+        }
+    }
+
+    public void testUnpairedSurrogatesBecomeQuestionMarks() throws IOException {
+        Route route = route(new Flight("LHE", "DXB", 1, 1, "a\uD83Db\uDE00c\uD83D"));
+        JsonObject flight = parse(json(route)).getAsJsonArray("flights").get(0).getAsJsonObject();
+        assertEquals("a?b?c?", flight.get("airline").getAsString());
+    }
+
+    public void testWriteJsonGrowsBuffer() throws IOException {
+        char[] name = new char[3000];
+        Arrays.fill(name, 'é');
+        String airline = new String(name);
+        Route large = route(new Flight("LHE", "DXB", 1, 1, airline), new Flight("DXB", "LHR", 2, 2, airline));
+
+        JsonObject json = parse(json(large));
+        assertEquals(airline, json.getAsJsonArray("flights").get(1).getAsJsonObject().get("airline").getAsString());
+
+        // The grown buffer is reused for the next, smaller route
+        Route small = route(new Flight("LHE", "KHI", 3, 3, "PIA"));
+        assertEquals(new BigDecimal("3.00"), parse(json(small)).get("totalPrice").getAsBigDecimal());
+    }
+
+    public void testTotalIsSumOfFlightCents() throws IOException {
+        double third = 100.0 / 3;
+        Route route = route(new Flight("LHE", "KHI", third, 60, "PIA"),
+                new Flight("KHI", "DXB", third, 60, "PIA"),
+                new Flight("DXB", "LHR", third, 60, "Emirates"));
+        assertEquals(10000, Math.round(route.getTotalPrice() * 100));
+
+        assertEquals(new BigDecimal("99.99"), parse(json(route)).get("totalPrice").getAsBigDecimal());
+        ByteBuffer binary = ByteBuffer.wrap(binary(route));
+        assertEquals(9999, binary.getLong(Integer.BYTES));
+    }
+
+    public void testBinaryDecodes() throws IOException {
+        Route route = route(new Flight("LHE", "DXB", 182.4, 215, "Emirates"),
+                new Flight("DXB", "IST", 99.99, 290, "Türk Hava Yolları"));
+        byte[] bytes = binary(route);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+
+        assertEquals(bytes.length - Integer.BYTES, in.getInt());
+        assertEquals(28239, in.getLong());
+        assertEquals(505, in.getInt());
+        assertEquals(2, Short.toUnsignedInt(in.getShort()));
+        for (Flight flight : route.getFlights()) {
+            assertEquals(flight, readFlightFields(in));
+        }
+        assertFalse(in.hasRemaining());
+
+        // Encoding at an offset gives the same bytes
+        ByteBuffer offset = ByteBuffer.allocate(bytes.length + 7);
+        offset.position(7);
+        assertEquals(bytes.length, encoder.encodeBinary(route, offset));
+        assertEquals(ByteBuffer.wrap(bytes), offset.flip().position(7));
+    }
+
+    public void testFlightBinaryDecodes() {
+        Flight flight = new Flight("ISB", "JFK", 1234.5, 960, "中国国际航空");
+        ByteBuffer out = ByteBuffer.allocate(256);
+        int written = encoder.encodeBinary(flight, out);
+        out.flip();
+        assertEquals(written - Integer.BYTES, out.getInt());
+        assertEquals(flight, readFlightFields(out));
+        assertFalse(out.hasRemaining());
+    }
+
+    public void testLittleEndianBufferRejected() {
+        try {
+            encoder.encodeBinary(route(), ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN));
+            fail("A little endian buffer must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    private static Flight readFlightFields(ByteBuffer in) {
+        String source = readString(in);
+        String destination = readString(in);
+        String airline = readString(in);
+        long cents = in.getLong();
+        int duration = in.getInt();
+        return new Flight(source, destination, cents / 100.0, duration, airline);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,196 @@
+package com.ksbl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Round trips stores through the writer and checks the reader, using chunks of a few edges
+ * so the chunk and offset arithmetic of multi-gigabyte stores is exercised on small files.
+ */
+public class RouteNetworkStoreTest extends TestCase {
+
+    private static final int AIRPORTS = 10;
+
+    private Path file;
+
+    public RouteNetworkStoreTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RouteNetworkStoreTest.class);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        file = Files.createTempFile("network", ".store");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes edges from every odd origin to the next three airports, so the first, last and
+     * every even origin have no edges. Field values are derived from the edge's position.
+     */
+    private long writeSample() throws IOException {
+        long edges = 0;
+        try (RouteNetworkStore.Writer writer = new RouteNetworkStore.Writer(file, AIRPORTS)) {
+            for (int origin = 1; origin < AIRPORTS - 1; origin += 2) {
+                for (int step = 1; step <= 3; step++) {
+                    writer.add(origin, (origin + step) % AIRPORTS, (int) edges % 7,
+                            1_000L * edges + 99, 60 + (int) edges, 1_700_000_000L + edges * 3600);
+                    edges++;
+                }
+            }
+        }
+        return edges;
+    }
+
+    public void testRoundTripAcrossChunks() throws IOException {
+        long written = writeSample();
+        for (int chunkShift : new int[] {0, 1, 2, 3, RouteNetworkStore.MAX_CHUNK_SHIFT}) {
+            try (RouteNetworkStore store = RouteNetworkStore.open(file, chunkShift)) {
+                assertEquals(AIRPORTS, store.getAirportCount());
+                assertEquals(written, store.getEdgeCount());
+                long[] visited = {0};
+                store.forEach((edge, origin, destination, carrier, priceMinor, duration, departure) -> {
+                    assertEquals(visited[0]++, edge);
+                    assertEquals(edge % 7, carrier);
+                    assertEquals(1_000L * edge + 99, priceMinor);
+                    assertEquals(60 + edge, duration);
+                    assertEquals(1_700_000_000L + edge * 3600, departure);
+                    assertEquals(origin, store.origin(edge));
+                    assertEquals(destination, store.destination(edge));
+                    assertEquals(priceMinor, store.priceMinor(edge));
+                });
+                assertEquals(written, visited[0]);
+            }
+        }
+    }
+
+    public void testOriginIndex() throws IOException {
+        writeSample();
+        try (RouteNetworkStore store = RouteNetworkStore.open(file, 2)) {
+            long expectedFirst = 0;
+            for (int origin = 0; origin < AIRPORTS; origin++) {
+                assertEquals("first edge of " + origin, expectedFirst, store.firstEdge(origin));
+                long count = origin % 2 == 1 && origin < AIRPORTS - 1 ? 3 : 0;
+                assertEquals("end edge of " + origin, expectedFirst + count, store.endEdge(origin));
+                int from = origin;
+                store.forEachFrom(origin, (edge, edgeOrigin, destination, carrier, priceMinor, duration, departure) ->
+                        assertEquals(from, edgeOrigin));
+                expectedFirst += count;
+            }
+        }
+    }
+
+    public void testEmptyStore() throws IOException {
+        new RouteNetworkStore.Writer(file, 3).close();
+        try (RouteNetworkStore store = RouteNetworkStore.open(file)) {
+            assertEquals(0, store.getEdgeCount());
+            assertEquals(0, store.findRoute(0, 2, false).length);
+        }
+    }
+
+    public void testWriterRejectsDescendingOrigins() throws IOException {
+        try (RouteNetworkStore.Writer writer = new RouteNetworkStore.Writer(file, AIRPORTS)) {
+            writer.add(3, 1, 0, 100, 60, 0);
+            writer.add(2, 1, 0, 100, 60, 0);
+            fail("Descending origins must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    public void testBadMagic() throws IOException {
+        Files.write(file, new byte[64]);
+        assertOpenFails();
+    }
+
+    public void testShorterThanHeader() throws IOException {
+        Files.write(file, new byte[10]);
+        assertOpenFails();
+    }
+
+    public void testTruncatedEdges() throws IOException {
+        writeSample();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertOpenFails();
+    }
+
+    private void assertOpenFails() {
+        try {
+            RouteNetworkStore.open(file, 2).close();
+            fail("Opening a damaged store must fail");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    public void testFindRouteMatchesFlightGraph() throws IOException {
+        SyntheticFlightAPIService service = new SyntheticFlightAPIService(42, 80, 8, 2);
+        List<String> codes = new ArrayList<>();
+        for (Airport airport : service.getAirports()) {
+            codes.add(airport.IATA());
+        }
+        codes.sort(null);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            ids.put(codes.get(i), i);
+        }
+
+        // The network is sorted by origin code, which matches ascending ids
+        List<Flight> network = service.getNetwork();
+        FlightGraph byPrice = new FlightGraph();
+        FlightGraph byDuration = new FlightGraph();
+        try (RouteNetworkStore.Writer writer = new RouteNetworkStore.Writer(file, codes.size())) {
+            for (Flight flight : network) {
+                writer.add(ids.get(flight.source()), ids.get(flight.destination()), 0,
+                        Math.round(flight.price() * 100), flight.duration(), 0);
+                byPrice.addFlight(flight, true);
+                byDuration.addFlight(flight, false);
+            }
+        }
+
+        try (RouteNetworkStore store = RouteNetworkStore.open(file, 3)) {
+            for (int source = 0; source < codes.size(); source += 7) {
+                for (int destination = 0; destination < codes.size(); destination += 5) {
+                    if (source == destination) {
+                        continue;
+                    }
+                    Route cheapest = byPrice.findCheapestRoute(codes.get(source), codes.get(destination));
+                    long cents = 0;
+                    for (long edge : store.findRoute(source, destination, false)) {
+                        cents += store.priceMinor(edge);
+                    }
+                    assertEquals(Math.round(cheapest.getTotalPrice() * 100), cents);
+
+                    Route shortest = byDuration.findShortestRoute(codes.get(source), codes.get(destination));
+                    long minutes = 0;
+                    long[] path = store.findRoute(source, destination, true);
+                    for (int i = 0; i < path.length; i++) {
+                        minutes += store.duration(path[i]);
+                        assertEquals(i == 0 ? source : store.destination(path[i - 1]), store.origin(path[i]));
+                    }
+                    assertEquals(shortest.getTotalDuration(), minutes);
+                }
+            }
+        }
+    }
+}
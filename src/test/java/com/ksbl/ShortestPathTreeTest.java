@@ -0,0 +1,186 @@
+package com.ksbl;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks that a tracked shortest path tree matches a fresh search on an untracked graph
+ * after every kind of edge change, and that tracking does not change search results.
+ */
+public class ShortestPathTreeTest extends TestCase {
+
+    private static final List<String> AIRPORTS =
+            List.of("LHE", "KHI", "ISB", "DXB", "DOH", "IST", "FRA", "LHR", "CDG", "JFK", "ORD");
+
+    private FlightGraph graph;
+    private GraphOracle oracle;
+
+    public ShortestPathTreeTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ShortestPathTreeTest.class);
+    }
+
+    /**
+     * The cheapest routes from LHE form a chain: LHE, KHI, DXB, DOH, IST, FRA, LHR, CDG, JFK, ORD,
+     * with ISB on a side branch. Every flight takes 100 minutes, so a dearer flight can replace
+     * one by being a minute faster.
+     */
+    @Override
+    protected void setUp() {
+        graph = new FlightGraph();
+        oracle = new GraphOracle(graph);
+        add("LHE", "KHI", 10);
+        add("LHE", "ISB", 15);
+        add("KHI", "DXB", 10);
+        add("ISB", "DXB", 12);
+        add("DXB", "DOH", 10);
+        add("DOH", "IST", 10);
+        add("IST", "FRA", 10);
+        add("FRA", "LHR", 10);
+        add("LHR", "CDG", 10);
+        add("CDG", "JFK", 10);
+        add("JFK", "ORD", 10);
+        add("DOH", "FRA", 25);
+        add("CDG", "ORD", 30);
+        add("LHE", "ORD", 200);
+    }
+
+    private void add(String source, String destination, double price) {
+        add(new Flight(source, destination, price, 100, "Test"), true);
+    }
+
+    private void add(Flight flight, boolean cheapest) {
+        assertTrue("flight replaced", oracle.add(flight, cheapest));
+    }
+
+    private void makeDearer(String source, String destination, double price) {
+        // Only a faster flight replaces the existing one when duration decides
+        add(new Flight(source, destination, price, 99, "Test"), false);
+    }
+
+    private double expectedCost(String source, String destination) {
+        return oracle.expectedCost(source, destination, false);
+    }
+
+    private void assertMatchesFreshSearch(ShortestPathTree tree) {
+        for (String airport : AIRPORTS) {
+            double expected = airport.equals(tree.getSource()) ? 0.0 : expectedCost(tree.getSource(), airport);
+            assertEquals("distance to " + airport, expected, tree.distanceTo(airport), 1e-9);
+            if (!airport.equals(tree.getSource())) {
+                // Routes are rebuilt from the tree's parents, so this also checks them
+                Route route = graph.findCheapestRoute(tree.getSource(), airport);
+                assertEquals("route to " + airport, expected, GraphOracle.cost(route, false), 1e-9);
+            }
+        }
+    }
+
+    public void testInitialTree() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        assertEquals(90.0, tree.distanceTo("ORD"), 1e-9);
+        assertEquals("JFK", tree.parentOf("ORD"));
+        assertNull(tree.parentOf("LHE"));
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testCheaperEdge() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        add("DOH", "FRA", 5);
+        assertEquals("DOH", tree.parentOf("FRA"));
+        assertEquals(1, tree.getRepairs());
+        assertEquals(1, tree.getRecomputations());
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testNewEdge() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        add("KHI", "LHR", 15);
+        assertEquals(25.0, tree.distanceTo("LHR"), 1e-9);
+        assertEquals(1, tree.getRepairs());
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testDearerTreeEdgeIsRepaired() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        // Only ORD hangs below JFK -> ORD, well under a quarter of the tree
+        makeDearer("JFK", "ORD", 50);
+        assertEquals("CDG", tree.parentOf("ORD"));
+        assertEquals(1, tree.getRepairs());
+        assertEquals(1, tree.getRecomputations());
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testDearerNonTreeEdgeChangesNothing() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        makeDearer("DOH", "FRA", 40);
+        assertEquals(0, tree.getRepairs());
+        assertEquals(1, tree.getRecomputations());
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testLargeSubtreeIsRecomputed() {
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        // Everything from DXB onwards hangs below KHI -> DXB
+        makeDearer("KHI", "DXB", 30);
+        assertEquals("ISB", tree.parentOf("DXB"));
+        assertEquals(0, tree.getRepairs());
+        assertEquals(2, tree.getRecomputations());
+        assertMatchesFreshSearch(tree);
+    }
+
+    public void testTrackingDoesNotChangeResults() {
+        FlightGraph tracking = oracle.copy(1);
+        double expected = expectedCost("LHE", "ORD");
+        // Repeated searches from LHE make the graph start tracking it
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected, tracking.findCheapestRoute("LHE", "ORD").getTotalPrice(), 1e-9);
+        }
+        add("DOH", "FRA", 5);
+        tracking.addFlight(oracle.edge("DOH", "FRA"), true);
+        assertEquals(expectedCost("LHE", "ORD"), tracking.findCheapestRoute("LHE", "ORD").getTotalPrice(), 1e-9);
+
+        // The tree was created by the searches, as a new one would not have been repaired yet
+        assertEquals(1, tracking.trackSource("LHE", false).getRepairs());
+    }
+
+    public void testNoAutomaticTrackingByDefault() {
+        for (int i = 0; i < 5; i++) {
+            graph.findCheapestRoute("LHE", "ORD");
+        }
+        add("DOH", "FRA", 5);
+        assertEquals(0, graph.trackSource("LHE", false).getRepairs());
+    }
+
+    public void testLeastRecentlySearchedSourceIsUntracked() {
+        FlightGraph tracking = oracle.copy(2);
+        for (String source : List.of("LHE", "KHI", "LHE", "KHI", "LHE", "KHI")) {
+            tracking.findCheapestRoute(source, "ORD");
+        }
+        ShortestPathTree lahore = tracking.trackSource("LHE", false);
+        ShortestPathTree karachi = tracking.trackSource("KHI", false);
+
+        // LHE is searched again, so KHI makes room for ISB
+        tracking.findCheapestRoute("LHE", "ORD");
+        for (int i = 0; i < 3; i++) {
+            tracking.findCheapestRoute("ISB", "ORD");
+        }
+        assertSame(lahore, tracking.trackSource("LHE", false));
+        assertNotSame(karachi, tracking.trackSource("KHI", false));
+    }
+
+    public void testRandomChanges() {
+        SplittableRandom random = new SplittableRandom(7);
+        ShortestPathTree tree = graph.trackSource("LHE", false);
+        for (int change = 0; change < 200; change++) {
+            if (oracle.randomChange(random, AIRPORTS)) {
+                assertMatchesFreshSearch(tree);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ksbl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Checks that a search split into parts returns exactly the offers of the whole search.
+ */
+public class SyntheticFlightAPIServiceTest extends TestCase {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+
+    private SyntheticFlightAPIService service;
+    private String origin;
+    private String destination;
+
+    public SyntheticFlightAPIServiceTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(SyntheticFlightAPIServiceTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        service = new SyntheticFlightAPIService(42, 300, 12, 2);
+        // Two spokes, so every offer connects through at least one hub
+        List<Airport> airports = service.getAirports();
+        origin = airports.get(airports.size() - 1).IATA();
+        destination = airports.get(airports.size() - 2).IATA();
+    }
+
+    public void testPartsMatchWholeSearch() throws Exception {
+        for (int routes : new int[] {1, 3, 10, 100}) {
+            List<Flight> whole = service.searchFlights(origin, destination, DATE, routes);
+            List<Callable<List<Flight>>> parts = service.searchFlightsInParts(origin, destination, DATE, routes);
+            assertTrue(parts.size() <= 4);
+            assertTrue(parts.size() <= routes);
+
+            List<Flight> joined = new ArrayList<>();
+            for (Callable<List<Flight>> part : parts) {
+                joined.addAll(part.call());
+            }
+            assertEquals("routes " + routes, whole, joined);
+        }
+    }
+
+    public void testPartsRunInParallel() throws Exception {
+        List<Flight> whole = service.searchFlights(origin, destination, DATE, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Flight> joined = new ArrayList<>();
+            for (Future<List<Flight>> part : executor.invokeAll(
+                    service.searchFlightsInParts(origin, destination, DATE, 100))) {
+                joined.addAll(part.get());
+            }
+            assertEquals(whole, joined);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testFirstPartHoldsCheapestOffer() throws Exception {
+        List<Flight> cheapest = service.searchFlights(origin, destination, DATE, 1);
+        List<Flight> first = service.searchFlightsInParts(origin, destination, DATE, 100).get(0).call();
+        assertFalse(cheapest.isEmpty());
+        assertEquals(cheapest, first.subList(0, cheapest.size()));
+    }
+}